@@ -0,0 +1,101 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.jobs.LogListener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class SonarLintLoggerTest {
+
+  private final List<LogListener> listeners = new ArrayList<>();
+
+  @After
+  public void removeListeners() {
+    listeners.forEach(SonarLintLogger.get()::removeLogListener);
+  }
+
+  @Test
+  public void should_not_build_message_when_debug_disabled() {
+    addListener(false);
+    assertThat(SonarLintLogger.get().isDebugEnabled()).isFalse();
+
+    SonarLintLogger.get().debug(() -> {
+      fail("Should not be called");
+      return "";
+    });
+  }
+
+  @Test
+  public void should_build_message_once_when_debug_enabled() {
+    List<String> messages1 = addListener(true);
+    List<String> messages2 = addListener(true);
+    addListener(false);
+    AtomicInteger calls = new AtomicInteger();
+
+    SonarLintLogger.get().debug(() -> "msg" + calls.incrementAndGet());
+
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(messages1).containsExactly("msg1");
+    assertThat(messages2).containsExactly("msg1");
+  }
+
+  @Test
+  public void should_not_build_message_without_listener() {
+    AtomicInteger calls = new AtomicInteger();
+
+    SonarLintLogger.get().debug(() -> "msg" + calls.incrementAndGet());
+
+    assertThat(calls.get()).isZero();
+  }
+
+  private List<String> addListener(boolean debugEnabled) {
+    List<String> debugMessages = new ArrayList<>();
+    LogListener listener = new LogListener() {
+      @Override
+      public void info(String msg, boolean fromAnalyzer) {
+      }
+
+      @Override
+      public void error(String msg, boolean fromAnalyzer) {
+      }
+
+      @Override
+      public void debug(String msg, boolean fromAnalyzer) {
+        debugMessages.add(msg);
+      }
+
+      @Override
+      public boolean isDebugEnabled() {
+        return debugEnabled;
+      }
+    };
+    listeners.add(listener);
+    SonarLintLogger.get().addLogListener(listener);
+    return debugMessages;
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChangedFilesCollectorTest {
+
+  private final Map<IProject, Subscriber> subscribers = new HashMap<>();
+  private long maxRefreshAgeMs = 60_000;
+  private final ChangedFilesCollector collector = new ChangedFilesCollector(subscribers::get, () -> maxRefreshAgeMs);
+
+  @Test
+  public void should_collect_out_of_sync_files_of_all_projects() throws TeamException {
+    IProject project1 = mockProject("project1");
+    IFile file1 = mockFile(project1, "src/Foo.java");
+    IProject project2 = mockProject("project2");
+    IFile file2 = mockFile(project2, "src/Bar.java");
+    mockSubscriber(project1, file1);
+    mockSubscriber(project2, file2);
+
+    Collection<IFile> changedFiles = collector.collectChangedFiles(Arrays.asList(project1, project2), new NullProgressMonitor());
+
+    assertThat(changedFiles).containsOnly(file1, file2);
+  }
+
+  @Test
+  public void should_ignore_folders_and_excluded_files() throws TeamException {
+    IProject project = mockProject("project");
+    IFile file = mockFile(project, "src/Foo.java");
+    IFile inDotFolder = mockFile(project, ".settings/org.eclipse.core.resources.prefs");
+    IFile derived = mockFile(project, "target/Foo.java");
+    when(derived.isDerived(IResource.CHECK_ANCESTORS)).thenReturn(true);
+    IFile compiled = mockFile(project, "bin/Foo.class");
+    IResource folder = mock(IResource.class);
+    when(folder.getType()).thenReturn(IResource.FOLDER);
+    when(folder.getFullPath()).thenReturn(new Path("/project/src"));
+    mockSubscriber(project, file, inDotFolder, derived, compiled, folder);
+
+    Collection<IFile> changedFiles = collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+
+    assertThat(changedFiles).containsOnly(file);
+  }
+
+  @Test
+  public void should_ignore_projects_not_shared_with_subscriber() throws TeamException {
+    IProject notShared = mockProject("notShared");
+    IProject notRoot = mockProject("notRoot");
+    Subscriber subscriber = mockSubscriber(notRoot, mockFile(notRoot, "Foo.java"));
+    when(subscriber.roots()).thenReturn(new IResource[0]);
+
+    Collection<IFile> changedFiles = collector.collectChangedFiles(Arrays.asList(notShared, notRoot), new NullProgressMonitor());
+
+    assertThat(changedFiles).isEmpty();
+    verify(subscriber, never()).refresh(any(), anyInt(), any());
+  }
+
+  @Test
+  public void should_reuse_recent_refresh() throws TeamException {
+    IProject project = mockProject("project");
+    Subscriber subscriber = mockSubscriber(project, mockFile(project, "Foo.java"));
+
+    collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+    Collection<IFile> changedFiles = collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+
+    assertThat(changedFiles).hasSize(1);
+    verify(subscriber, times(1)).refresh(any(), anyInt(), any());
+    verify(subscriber, times(2)).collectOutOfSync(any(), anyInt(), any(), any());
+  }
+
+  @Test
+  public void should_refresh_each_time_when_max_age_is_zero() throws TeamException {
+    maxRefreshAgeMs = 0;
+    IProject project = mockProject("project");
+    Subscriber subscriber = mockSubscriber(project, mockFile(project, "Foo.java"));
+
+    collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+    collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+
+    verify(subscriber, times(2)).refresh(any(), anyInt(), any());
+  }
+
+  @Test
+  public void should_forget_refresh_of_closed_and_deleted_projects() throws TeamException {
+    IProject project = mockProject("project");
+    IProject other = mockProject("other");
+    Subscriber subscriber = mockSubscriber(project, mockFile(project, "Foo.java"));
+    mockSubscriber(other, mockFile(other, "Foo.java"));
+    collector.collectChangedFiles(Arrays.asList(project, other), new NullProgressMonitor());
+    assertThat(collector.getRefreshedProjectCount()).isEqualTo(2);
+
+    collector.resourceChanged(event(IResourceChangeEvent.PRE_CLOSE, project));
+    collector.resourceChanged(event(IResourceChangeEvent.PRE_DELETE, other));
+    assertThat(collector.getRefreshedProjectCount()).isZero();
+
+    collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+    verify(subscriber, times(2)).refresh(any(), anyInt(), any());
+  }
+
+  @Test
+  public void should_not_refresh_when_canceled() throws TeamException {
+    IProject project = mockProject("project");
+    Subscriber subscriber = mockSubscriber(project, mockFile(project, "Foo.java"));
+    IProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+
+    Collection<IFile> changedFiles = collector.collectChangedFiles(Collections.singletonList(project), monitor);
+
+    assertThat(changedFiles).isEmpty();
+    verify(subscriber, never()).refresh(any(), anyInt(), any());
+  }
+
+  @Test
+  public void should_report_scm_failures() throws TeamException {
+    IProject project = mockProject("project");
+    Subscriber subscriber = mockSubscriber(project);
+    TeamException cause = new TeamException("SCM is down");
+    when(subscriber.roots()).thenThrow(cause);
+
+    try {
+      collector.collectChangedFiles(Collections.singletonList(project), new NullProgressMonitor());
+      fail("Expected an exception");
+    } catch (IllegalStateException e) {
+      assertThat(e.getCause()).isSameAs(cause);
+    }
+  }
+
+  private static IProject mockProject(String name) {
+    IProject project = mock(IProject.class);
+    when(project.getName()).thenReturn(name);
+    return project;
+  }
+
+  private static IFile mockFile(IProject project, String relativePath) {
+    Path path = new Path(relativePath);
+    IFile file = mock(IFile.class);
+    when(file.getType()).thenReturn(IResource.FILE);
+    when(file.exists()).thenReturn(true);
+    when(file.getName()).thenReturn(path.lastSegment());
+    when(file.getFileExtension()).thenReturn(path.getFileExtension());
+    when(file.getProjectRelativePath()).thenReturn(path);
+    when(file.getFullPath()).thenReturn(new Path(project.getName()).append(path).makeAbsolute());
+    when(file.getProject()).thenReturn(project);
+    return file;
+  }
+
+  private Subscriber mockSubscriber(IProject project, IResource... outOfSync) throws TeamException {
+    Subscriber subscriber = mock(Subscriber.class);
+    when(subscriber.roots()).thenReturn(new IResource[] {project});
+    List<SyncInfo> infos = new ArrayList<>();
+    for (IResource resource : outOfSync) {
+      SyncInfo info = mock(SyncInfo.class);
+      when(info.getLocal()).thenReturn(resource);
+      infos.add(info);
+    }
+    doAnswer(invocation -> {
+      SyncInfoSet set = invocation.getArgument(2);
+      infos.forEach(set::add);
+      return null;
+    }).when(subscriber).collectOutOfSync(any(), anyInt(), any(), any());
+    subscribers.put(project, subscriber);
+    return subscriber;
+  }
+
+  private static IResourceChangeEvent event(int type, IProject project) {
+    IResourceChangeEvent event = mock(IResourceChangeEvent.class);
+    when(event.getType()).thenReturn(type);
+    when(event.getResource()).thenReturn(project);
+    return event;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.Arrays;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.sonarlint.eclipse.core.internal.resources.SonarLintProject;
+import org.sonarlint.eclipse.core.internal.server.IServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerUpdateJobTest {
+
+  private final IServer server = mock(IServer.class);
+
+  @Before
+  public void setUp() {
+    when(server.getId()).thenReturn("server");
+    when(server.getBoundProjects()).thenReturn(Arrays.asList(
+      boundProject("p1", "module1"),
+      boundProject("p2", "module2"),
+      boundProject("p3", "module1")));
+  }
+
+  @Test
+  public void should_update_each_module_once() throws InterruptedException {
+    IStatus result = runJob(new ServerUpdateJob(server));
+
+    assertThat(result.isOK()).isTrue();
+    InOrder inOrder = inOrder(server);
+    inOrder.verify(server).updateStorage(any());
+    inOrder.verify(server, times(1)).updateProjectStorage("module1");
+    inOrder.verify(server, times(1)).updateProjectStorage("module2");
+  }
+
+  @Test
+  public void should_report_failures_per_module() throws InterruptedException {
+    doThrow(new IllegalStateException("Boom")).when(server).updateProjectStorage("module1");
+
+    IStatus result = runJob(new ServerUpdateJob(server));
+
+    assertThat(result.getSeverity()).isEqualTo(IStatus.ERROR);
+    assertThat(result.getMessage()).isEqualTo("Failed to update binding for 1 module(s)");
+    assertThat(result.getChildren()).hasSize(1);
+    assertThat(result.getChildren()[0].getMessage()).isEqualTo("Unable to update module 'module1' bound to project(s) 'p1', 'p3'");
+    assertThat(result.getChildren()[0].getException()).hasMessage("Boom");
+    verify(server).updateProjectStorage("module2");
+  }
+
+  @Test
+  public void should_stop_updating_modules_when_canceled() throws InterruptedException {
+    ServerUpdateJob job = new ServerUpdateJob(server);
+    doAnswer(invocation -> job.cancel()).when(server).updateProjectStorage("module1");
+
+    IStatus result = runJob(job);
+
+    assertThat(result.getSeverity()).isEqualTo(IStatus.CANCEL);
+    verify(server, never()).updateProjectStorage("module2");
+  }
+
+  private static IStatus runJob(ServerUpdateJob job) throws InterruptedException {
+    job.schedule();
+    job.join();
+    return job.getResult();
+  }
+
+  private static SonarLintProject boundProject(String name, String moduleKey) {
+    IProject project = mock(IProject.class);
+    when(project.getName()).thenReturn(name);
+    SonarLintProject sonarLintProject = new SonarLintProject(project);
+    sonarLintProject.setServerId("server");
+    sonarLintProject.setModuleKey(moduleKey);
+    return sonarLintProject;
+  }
+}
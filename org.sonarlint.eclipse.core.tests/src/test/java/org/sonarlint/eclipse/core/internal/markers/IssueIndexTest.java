@@ -0,0 +1,129 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sonarlint.eclipse.tests.common.SonarTestCase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IssueIndexTest extends SonarTestCase {
+
+  private static IProject project;
+  private IssueIndex index;
+
+  @BeforeClass
+  public static void importProject() throws Exception {
+    project = importEclipseProject("SimpleProject");
+  }
+
+  @Before
+  public void prepare() {
+    index = new IssueIndex();
+  }
+
+  @Test
+  public void should_count_issues_of_parents() {
+    IFile file1 = project.getFile("src/main/java/ViolationOnFile.java");
+    IFile file2 = project.getFile("src/main/java/ViolationOnFileCrLf.java");
+    index.update(file1, Arrays.asList(issue(file1, "squid:S1", "MAJOR"), issue(file1, "squid:S2", "BLOCKER")));
+    index.update(file2, Collections.singletonList(issue(file2, "squid:S1", "MAJOR")));
+
+    assertThat(index.getCounts(file1).getTotal()).isEqualTo(2);
+    assertThat(index.getCounts(file1.getParent()).getTotal()).isEqualTo(3);
+    assertThat(index.getCounts(project).getCount("MAJOR")).isEqualTo(2);
+    assertThat(index.getCounts(project).getCount("BLOCKER")).isEqualTo(1);
+    assertThat(index.getCounts(workspace.getRoot()).getTotal()).isEqualTo(3);
+
+    index.update(file1, Collections.singletonList(issue(file1, "squid:S2", "BLOCKER")));
+    assertThat(index.getCounts(project).getCount("MAJOR")).isEqualTo(1);
+
+    index.update(file1, Collections.emptyList());
+    assertThat(index.getCounts(file1).isEmpty()).isTrue();
+    assertThat(index.getCounts(project).getTotal()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_move_issues_with_folder() {
+    IFile file1 = project.getFile("src/main/java/ViolationOnFile.java");
+    index.update(file1, Arrays.asList(issue(file1, "squid:S1", "MAJOR"), issue(file1, "squid:S2", "BLOCKER")));
+
+    index.move(project.getFolder("src/main"), project.getFolder("src/moved").getFullPath());
+
+    IFile movedFile = project.getFile("src/moved/java/ViolationOnFile.java");
+    assertThat(index.getCounts(file1).isEmpty()).isTrue();
+    assertThat(index.getCounts(project.getFolder("src/main")).isEmpty()).isTrue();
+    assertThat(index.getCounts(movedFile).getTotal()).isEqualTo(2);
+    assertThat(index.getCounts(project.getFolder("src/moved")).getCount("BLOCKER")).isEqualTo(1);
+    assertThat(index.getCounts(project).getTotal()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_follow_renamed_file() throws CoreException {
+    IFile file = project.getFile("src/main/java/ToRename.java");
+    file.create(new ByteArrayInputStream("class ToRename {}".getBytes(StandardCharsets.UTF_8)), true, null);
+    IFile renamed = project.getFile("src/main/java/Renamed.java");
+    index.update(file, Collections.singletonList(issue(file, "squid:S1", "MAJOR")));
+    workspace.addResourceChangeListener(index, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.POST_CHANGE);
+    try {
+      file.move(renamed.getFullPath(), true, null);
+
+      assertThat(index.getCounts(file).isEmpty()).isTrue();
+      assertThat(index.getCounts(renamed).getTotal()).isEqualTo(1);
+      assertThat(index.getCounts(project).getTotal()).isEqualTo(1);
+
+      renamed.delete(true, null);
+
+      assertThat(index.getCounts(project).isEmpty()).isTrue();
+    } finally {
+      workspace.removeResourceChangeListener(index);
+    }
+  }
+
+  @Test
+  public void should_remove_issues_of_container_and_notify() {
+    IFile file1 = project.getFile("src/main/java/ViolationOnFile.java");
+    index.update(file1, Collections.singletonList(issue(file1, "squid:S1", "MAJOR")));
+    List<IResource> notified = new ArrayList<>();
+    index.addListener(notified::addAll);
+
+    index.remove(project);
+
+    assertThat(index.getCounts(workspace.getRoot()).isEmpty()).isTrue();
+    assertThat(notified).contains(file1, file1.getParent(), project, workspace.getRoot());
+  }
+
+  private static IndexedIssue issue(IResource file, String ruleKey, String severity) {
+    return new IndexedIssue(file, ruleKey, severity, 1, "message");
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.resources;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.tests.common.SonarTestCase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SonarLintProjectManagerTest extends SonarTestCase {
+
+  private static IProject project;
+  private static SonarLintProjectManager manager;
+
+  @BeforeClass
+  public static void prepare() throws Exception {
+    project = importEclipseProject("SimpleProject");
+    manager = SonarLintCorePlugin.getDefault().getProjectManager();
+  }
+
+  @AfterClass
+  public static void unbind() {
+    SonarLintProject sonarProject = SonarLintProject.getWorkingCopy(project);
+    sonarProject.setServerId(null);
+    sonarProject.setModuleKey(null);
+    sonarProject.save();
+  }
+
+  @Test
+  public void should_cache_configuration() {
+    assertThat(SonarLintProject.getInstance(project)).isSameAs(SonarLintProject.getInstance(project));
+  }
+
+  @Test
+  public void should_index_bound_projects() {
+    SonarLintProject sonarProject = SonarLintProject.getWorkingCopy(project);
+    sonarProject.setServerId("server1");
+    sonarProject.setModuleKey("key1");
+    sonarProject.save();
+
+    assertThat(manager.getBoundProjects("server1")).extracting(SonarLintProject::getProject).containsOnly(project);
+    assertThat(manager.getBoundProjects("server2")).isEmpty();
+
+    sonarProject = SonarLintProject.getWorkingCopy(project);
+    sonarProject.setServerId("server2");
+    sonarProject.save();
+
+    assertThat(manager.getBoundProjects("server1")).isEmpty();
+    assertThat(manager.getBoundProjects("server2")).extracting(SonarLintProject::getProject).containsOnly(project);
+  }
+
+  @Test
+  public void should_remove_unbound_project_from_index() {
+    SonarLintProject sonarProject = SonarLintProject.getWorkingCopy(project);
+    sonarProject.setServerId("server1");
+    sonarProject.setModuleKey("key1");
+    sonarProject.save();
+    assertThat(manager.getBoundProjects("server1")).hasSize(1);
+
+    SonarLintProject.getInstance(project).unbind();
+
+    assertThat(manager.getBoundProjects("server1")).isEmpty();
+    assertThat(SonarLintProject.getInstance(project).isBound()).isFalse();
+  }
+
+  @Test
+  public void should_not_share_working_copy() {
+    SonarLintProject shared = SonarLintProject.getInstance(project);
+    SonarLintProject workingCopy = SonarLintProject.getWorkingCopy(project);
+    workingCopy.setModuleKey("notSaved");
+
+    assertThat(workingCopy).isNotSameAs(shared);
+    assertThat(SonarLintProject.getInstance(project).getModuleKey()).isNotEqualTo("notSaved");
+  }
+
+  @Test
+  public void should_invalidate_on_preference_change() throws Exception {
+    SonarLintProject before = SonarLintProject.getInstance(project);
+    IEclipsePreferences projectNode = new ProjectScope(project).getNode(SonarLintCorePlugin.PLUGIN_ID);
+    projectNode.put("moduleKey", "changedOutsideOfManager");
+    projectNode.flush();
+
+    SonarLintProject after = SonarLintProject.getInstance(project);
+    assertThat(after).isNotSameAs(before);
+    assertThat(after.getModuleKey()).isEqualTo("changedOutsideOfManager");
+  }
+
+}
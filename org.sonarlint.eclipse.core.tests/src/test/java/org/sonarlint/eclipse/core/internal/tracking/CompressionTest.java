@@ -0,0 +1,91 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class CompressionTest {
+
+  @Test
+  public void should_decompress_content_written_with_any_compression() throws IOException {
+    byte[] raw = content(10_000);
+
+    for (Compression compression : Compression.values()) {
+      assertThat(decompress(compression.compress(raw))).isEqualTo(raw);
+    }
+  }
+
+  @Test
+  public void should_compress_with_header() {
+    byte[] compressed = Compression.DEFLATE.compress(content(10_000));
+
+    assertThat(compressed.length).isLessThan(10_000);
+    assertThat(compressed[0]).isEqualTo((byte) 0);
+  }
+
+  @Test
+  public void should_keep_small_content_uncompressed() {
+    byte[] raw = content(100);
+
+    assertThat(Compression.DEFLATE.compress(raw)).isSameAs(raw);
+  }
+
+  @Test
+  public void should_read_empty_content() throws IOException {
+    assertThat(decompress(new byte[0])).isEmpty();
+  }
+
+  @Test
+  public void should_fail_on_unknown_compression() {
+    try {
+      decompress(new byte[] {0, 42, 1, 2});
+      fail("Expected exception");
+    } catch (IOException e) {
+      assertThat(e).hasMessage("Unknown compression: 42");
+    }
+  }
+
+  private static byte[] content(int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) ('a' + i % 13);
+    }
+    return content;
+  }
+
+  private static byte[] decompress(byte[] content) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = Compression.decompress(new ByteArrayInputStream(content))) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+}
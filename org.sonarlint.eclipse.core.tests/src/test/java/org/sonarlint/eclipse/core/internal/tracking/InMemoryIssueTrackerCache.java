@@ -55,11 +55,26 @@ public class InMemoryIssueTrackerCache implements IssueTrackerCache {
     cache.put(file, trackables);
   }
 
+  @Override
+  public int getLiveFileCount() {
+    return cache.size();
+  }
+
+  @Override
+  public int getLiveIssueCount() {
+    return cache.values().stream().mapToInt(Collection::size).sum();
+  }
+
   @Override
   public void clear() {
     cache.clear();
   }
 
+  @Override
+  public void journalUnflushed() {
+    // nothing to do
+  }
+
   @Override
   public void shutdown() {
     // nothing to do
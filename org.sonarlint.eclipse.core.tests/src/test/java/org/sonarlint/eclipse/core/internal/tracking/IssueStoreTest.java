@@ -0,0 +1,332 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.tests.common.JobHelpers;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path storeBasePath;
+  private Path projectBasePath;
+
+  @Before
+  public void setUp() throws IOException {
+    storeBasePath = temporaryFolder.newFolder().toPath();
+    projectBasePath = temporaryFolder.newFolder().toPath();
+    Files.createFile(projectBasePath.resolve("Foo.java"));
+    Files.createFile(projectBasePath.resolve("Bar.java"));
+  }
+
+  @Test
+  public void should_save_all_files_at_once() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    Map<String, Collection<Trackable>> issues = new LinkedHashMap<>();
+    issues.put("Foo.java", Collections.singletonList(issue("foo")));
+    issues.put("Bar.java", Collections.emptyList());
+
+    store.saveAll(issues);
+
+    IssueStore reopened = new IssueStore(storeBasePath, projectBasePath);
+    assertThat(reopened.read("Foo.java")).extracting(Trackable::getMessage).containsExactly("foo");
+    assertThat(reopened.read("Bar.java")).isEmpty();
+    assertThat(storeBasePath.resolve(IssueStore.FLUSH_JOURNAL_FILENAME)).doesNotExist();
+    assertThat(temporaryFiles()).isZero();
+  }
+
+  @Test
+  public void should_discard_leftovers_of_interrupted_flush() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    store.save("Foo.java", Collections.singletonList(issue("foo")));
+    // Simulate a session killed while flushing
+    Files.write(storeBasePath.resolve(IssueStore.FLUSH_JOURNAL_FILENAME), "Foo.java\nBar.java".getBytes(UTF_8));
+    Files.write(storeBasePath.resolve("index.pb123.tmp"), new byte[] {1, 2, 3});
+
+    IssueStore reopened = new IssueStore(storeBasePath, projectBasePath);
+
+    assertThat(storeBasePath.resolve(IssueStore.FLUSH_JOURNAL_FILENAME)).doesNotExist();
+    assertThat(temporaryFiles()).isZero();
+    // Completed writes are still readable
+    assertThat(reopened.read("Foo.java")).extracting(Trackable::getMessage).containsExactly("foo");
+  }
+
+  @Test
+  public void should_keep_issues_after_close_and_compaction() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    for (int i = 0; i < 100; i++) {
+      store.save("Foo.java", Collections.singletonList(issue("foo" + i)));
+      store.save("Bar.java", Collections.singletonList(issue("bar" + i)));
+    }
+    store.compact();
+    store.close();
+
+    assertThat(store.read("Foo.java")).extracting(Trackable::getMessage).containsExactly("foo99");
+    assertThat(store.read("Bar.java")).extracting(Trackable::getMessage).containsExactly("bar99");
+    // a single segment file
+    try (Stream<Path> files = Files.list(storeBasePath)) {
+      assertThat(files.filter(p -> !p.toFile().isDirectory()).count()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void should_keep_store_usable_when_thread_is_interrupted() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    store.save("Foo.java", Collections.singletonList(issue("foo")));
+
+    Thread.currentThread().interrupt();
+    try {
+      store.save("Bar.java", Collections.singletonList(issue("bar")));
+    } finally {
+      // interruption is preserved, and cleared for next tests
+      assertThat(Thread.interrupted()).isTrue();
+    }
+
+    assertThat(store.read("Foo.java")).extracting(Trackable::getMessage).containsExactly("foo");
+    assertThat(store.read("Bar.java")).extracting(Trackable::getMessage).containsExactly("bar");
+  }
+
+  @Test
+  public void should_migrate_legacy_layout() throws IOException {
+    // One file per source file, located by a hashing path mapper, and an index
+    HashingPathMapper mapper = new HashingPathMapper(storeBasePath, 2);
+    Sonarlint.StorageIndex.Builder index = Sonarlint.StorageIndex.newBuilder();
+    for (String file : new String[] {"Foo.java", "Bar.java"}) {
+      Path path = mapper.apply(file);
+      Files.createDirectories(path.getParent());
+      Files.write(path, Sonarlint.Issues.newBuilder()
+        .addIssue(Sonarlint.Issues.Issue.newBuilder().setRuleKey("squid:S123").setMessage(file).setLine(1))
+        .build().toByteArray());
+      index.putMappedPathByKey(file, storeBasePath.relativize(path).toString());
+    }
+    Files.write(storeBasePath.resolve("index.pb"), index.build().toByteArray());
+
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+
+    // Readable while being migrated in background
+    assertThat(store.read("Foo.java")).extracting(Trackable::getMessage).containsExactly("Foo.java");
+    assertThat(store.contains("Bar.java")).isTrue();
+    // Not overwritten by the migration
+    store.save("Foo.java", Collections.singletonList(issue("foo")));
+
+    JobHelpers.waitForJobs(job -> "Migrate SonarLint issues".equals(job.getName()), 10_000);
+
+    assertThat(store.read("Foo.java")).extracting(Trackable::getMessage).containsExactly("foo");
+    assertThat(store.read("Bar.java")).extracting(Trackable::getMessage).containsExactly("Bar.java");
+    assertThat(storeBasePath.resolve("index.pb")).doesNotExist();
+    try (Stream<Path> files = Files.list(storeBasePath)) {
+      assertThat(files.filter(p -> p.toFile().isDirectory()).count()).isZero();
+    }
+  }
+
+  @Test
+  public void should_remove_stale_entries_in_batches() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    Map<String, Collection<Trackable>> issues = new LinkedHashMap<>();
+    issues.put("Foo.java", Collections.singletonList(issue("foo")));
+    for (int i = 0; i < 500; i++) {
+      issues.put("Deleted" + i + ".java", Collections.singletonList(issue("deleted")));
+    }
+    store.saveAll(issues);
+    assertThat(store.getLastStaleEntriesRemovalTime()).isEqualTo(-1);
+
+    assertThat(store.removeStaleEntries(new NullProgressMonitor())).isEqualTo(500);
+
+    assertThat(store.getLastStaleEntriesRemovalTime()).isGreaterThanOrEqualTo(0);
+    assertThat(store.contains("Foo.java")).isTrue();
+    assertThat(store.contains("Deleted0.java")).isFalse();
+    assertThat(store.contains("Deleted499.java")).isFalse();
+  }
+
+  @Test
+  public void should_stop_removing_stale_entries_when_canceled() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    store.save("Deleted.java", Collections.singletonList(issue("deleted")));
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+
+    assertThat(store.removeStaleEntries(monitor)).isZero();
+    assertThat(store.contains("Deleted.java")).isTrue();
+  }
+
+  @Test
+  public void should_keep_text_range_and_hash() throws IOException {
+    IssueStore store = new IssueStore(storeBasePath, projectBasePath);
+    Trackable issue = issue("foo");
+    when(issue.getTextRange()).thenReturn(new TextRange(1, 0, 2, 5));
+    when(issue.getTextRangeHash()).thenReturn(0);
+    Trackable noRange = issue("bar");
+    when(noRange.getTextRange()).thenReturn(new TextRange(3));
+
+    store.save("Foo.java", Arrays.asList(issue, noRange));
+    store.close();
+
+    List<Trackable> read = new ArrayList<>(store.read("Foo.java"));
+    assertThat(read.get(0).getTextRangeHash()).isEqualTo(0);
+    TextRange textRange = read.get(0).getTextRange();
+    assertThat(textRange.getStartLine()).isEqualTo(1);
+    assertThat(textRange.getStartLineOffset()).isEqualTo(0);
+    assertThat(textRange.getEndLine()).isEqualTo(2);
+    assertThat(textRange.getEndLineOffset()).isEqualTo(5);
+    assertThat(read.get(1).getTextRangeHash()).isNull();
+    textRange = read.get(1).getTextRange();
+    assertThat(textRange.getStartLine()).isEqualTo(3);
+    assertThat(textRange.getStartLineOffset()).isNull();
+    assertThat(textRange.getEndLine()).isNull();
+    assertThat(textRange.getEndLineOffset()).isNull();
+  }
+
+  @Test
+  public void should_read_issues_in_version_0() {
+    Sonarlint.Issues issues = Sonarlint.Issues.newBuilder()
+      .addIssue(Sonarlint.Issues.Issue.newBuilder().setRuleKey("squid:S123").setMessage("foo").setLine(1).setChecksum(123))
+      .build();
+
+    Collection<Trackable> read = IssueStore.fromProto(issues);
+
+    assertThat(read).extracting(Trackable::getRuleKey, Trackable::getMessage, Trackable::getLine, Trackable::getLineHash)
+      .containsExactly(tuple("squid:S123", "foo", 1, 123));
+    assertThat(read.iterator().next().getTextRange()).isNull();
+    assertThat(read.iterator().next().getTextRangeHash()).isNull();
+  }
+
+  @Test
+  public void should_ignore_issues_in_unknown_version() {
+    Sonarlint.Issues issues = Sonarlint.Issues.newBuilder()
+      .setVersion(IssueStore.FORMAT_VERSION + 1)
+      .build();
+
+    assertThat(IssueStore.fromProto(issues)).isNull();
+  }
+
+  @Test
+  public void should_be_smaller_than_version_0_with_repeated_rules() {
+    List<Trackable> issues = new ArrayList<>();
+    Sonarlint.Issues.Builder version0 = Sonarlint.Issues.newBuilder();
+    for (int i = 0; i < 1000; i++) {
+      Trackable issue = issue("Remove this unused \"foo" + (i % 10) + "\" local variable.");
+      when(issue.getLineHash()).thenReturn(i * 31_337);
+      when(issue.getTextRange()).thenReturn(new TextRange(i, 4, i, 20));
+      when(issue.getTextRangeHash()).thenReturn(i);
+      issues.add(issue);
+      version0.addIssue(Sonarlint.Issues.Issue.newBuilder()
+        .setRuleKey(issue.getRuleKey())
+        .setMessage(issue.getMessage())
+        .setChecksum(issue.getLineHash())
+        .setLine(issue.getLine()));
+    }
+
+    Sonarlint.Issues encoded = IssueStore.toProto(issues);
+    Collection<Trackable> decoded = IssueStore.fromProto(encoded);
+
+    // Text ranges are stored in addition, but rule keys and messages only once
+    assertThat(encoded.getSerializedSize()).isLessThan(version0.build().getSerializedSize() * 2 / 3);
+    assertThat(encoded.getDictionaryCount()).isEqualTo(11);
+    assertThat(decoded).extracting(Trackable::getMessage).containsExactlyElementsOf(issues.stream().map(Trackable::getMessage).collect(Collectors.toList()));
+    assertThat(decoded).extracting(Trackable::getLineHash).containsExactlyElementsOf(issues.stream().map(Trackable::getLineHash).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void should_read_issues_written_with_another_compression() throws IOException {
+    List<Trackable> issues = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      issues.add(issue("foo" + i));
+    }
+    IssueStore compressed = new IssueStore(storeBasePath, projectBasePath, Compression.DEFLATE);
+    compressed.save("Foo.java", issues);
+    compressed.close();
+
+    IssueStore uncompressed = new IssueStore(storeBasePath, projectBasePath, Compression.NONE);
+    assertThat(uncompressed.read("Foo.java")).hasSize(100);
+    uncompressed.save("Bar.java", issues);
+    uncompressed.close();
+
+    assertThat(new IssueStore(storeBasePath, projectBasePath, Compression.DEFLATE).read("Bar.java")).hasSize(100);
+  }
+
+  @Test
+  public void should_write_smaller_segment_with_compression() throws IOException {
+    List<Trackable> issues = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Trackable issue = issue("Remove this unused \"foo" + (i % 30) + "\" local variable.");
+      when(issue.getLineHash()).thenReturn((i % 50) * 31_337);
+      when(issue.getTextRange()).thenReturn(new TextRange(i, 4, i, 20));
+      issues.add(issue);
+    }
+
+    long uncompressedSize = segmentSize(Compression.NONE, issues);
+    long compressedSize = segmentSize(Compression.DEFLATE, issues);
+
+    assertThat(compressedSize).isLessThan(uncompressedSize * 3 / 4);
+  }
+
+  private long segmentSize(Compression compression, List<Trackable> issues) throws IOException {
+    Path base = temporaryFolder.newFolder().toPath();
+    IssueStore store = new IssueStore(base, projectBasePath, compression);
+    store.save("Foo.java", issues);
+    store.close();
+    assertThat(store.read("Foo.java")).extracting(Trackable::getLineHash)
+      .containsExactlyElementsOf(issues.stream().map(Trackable::getLineHash).collect(Collectors.toList()));
+    try (Stream<Path> files = Files.list(base)) {
+      return files.mapToLong(p -> p.toFile().length()).sum();
+    }
+  }
+
+  private long temporaryFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(storeBasePath)) {
+      return files.filter(p -> p.toString().endsWith(".tmp")).count();
+    }
+  }
+
+  private static Trackable issue(String message) {
+    Trackable trackable = mock(Trackable.class);
+    when(trackable.getRuleKey()).thenReturn("squid:S123");
+    when(trackable.getMessage()).thenReturn(message);
+    when(trackable.getLine()).thenReturn(1);
+    return trackable;
+  }
+}
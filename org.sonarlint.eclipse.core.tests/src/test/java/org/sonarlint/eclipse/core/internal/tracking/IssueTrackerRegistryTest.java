@@ -0,0 +1,188 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IssueTrackerRegistryTest {
+
+  private final List<IssueTrackerCache> caches = new ArrayList<>();
+
+  private final IssueTrackerRegistry registry = new IssueTrackerRegistry((project, localModuleKey) -> {
+    IssueTrackerCache cache = spy(new InMemoryIssueTrackerCache());
+    caches.add(cache);
+    return cache;
+  });
+
+  private final IProject project = mockProject("project");
+
+  private static IProject mockProject(String name) {
+    IProject project = mock(IProject.class);
+    when(project.getName()).thenReturn(name);
+    return project;
+  }
+
+  @Test
+  public void should_flush_and_release_tracker_of_closed_project() {
+    IssueTracker tracker = registry.getOrCreate(project, "project");
+    tracker.matchAndTrackAsNew("file", Collections.singletonList(mock(Trackable.class)));
+    assertThat(registry.getLiveTrackerCount()).isEqualTo(1);
+    assertThat(registry.getEstimatedMemory()).isPositive();
+
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_CLOSE, project));
+    assertThat(registry.get(project)).isEmpty();
+    assertThat(registry.getLiveTrackerCount()).isZero();
+
+    // Recreated lazily, once the previous one is flushed
+    IssueTracker reopened = registry.getOrCreate(project, "project");
+    assertThat(reopened).isNotSameAs(tracker);
+    verify(caches.get(0)).shutdown();
+    assertThat(caches).hasSize(2);
+  }
+
+  @Test
+  public void should_release_tracker_of_deleted_project() {
+    registry.getOrCreate(project, "project");
+    IProject other = mockProject("other");
+    registry.getOrCreate(other, "other");
+
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_DELETE, project));
+
+    assertThat(registry.get(project)).isEmpty();
+    assertThat(registry.get(other)).isPresent();
+  }
+
+  @Test
+  public void should_keep_issues_of_deleted_project() {
+    registry.getOrCreate(project, "project");
+
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_DELETE, project));
+    // Waits for the flush
+    registry.getOrCreate(project, "project");
+
+    // Also notified when a project is renamed or moved
+    verify(caches.get(0)).shutdown();
+    verify(caches.get(0), never()).clear();
+  }
+
+  @Test
+  public void should_not_open_store_of_deleted_project_without_tracker() {
+    registry.getOrCreate(project, "project");
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_CLOSE, project));
+
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_DELETE, project));
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_DELETE, mockProject("never analyzed")));
+    registry.shutdown();
+
+    verify(caches.get(0)).shutdown();
+    assertThat(caches).hasSize(1);
+  }
+
+  @Test
+  public void should_flush_all_trackers_on_shutdown() {
+    registry.getOrCreate(project, "project");
+    registry.getOrCreate(mockProject("other"), "other");
+    registry.resourceChanged(event(IResourceChangeEvent.PRE_CLOSE, project));
+
+    registry.shutdown();
+
+    verify(caches.get(0)).shutdown();
+    verify(caches.get(1)).shutdown();
+  }
+
+  @Test
+  public void should_not_wait_for_flush_after_deadline() {
+    CountDownLatch blocked = new CountDownLatch(1);
+    IssueTrackerRegistry slowRegistry = new IssueTrackerRegistry((p, localModuleKey) -> new InMemoryIssueTrackerCache() {
+      @Override
+      public void shutdown() {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    slowRegistry.getOrCreate(project, "project");
+
+    long start = System.currentTimeMillis();
+    slowRegistry.shutdown(100, TimeUnit.MILLISECONDS);
+
+    assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+    blocked.countDown();
+  }
+
+  @Test
+  public void should_journal_trackers_not_flushed_before_deadline() {
+    CountDownLatch blocked = new CountDownLatch(1);
+    Set<IssueTrackerCache> started = ConcurrentHashMap.newKeySet();
+    Set<IssueTrackerCache> journaled = ConcurrentHashMap.newKeySet();
+    IssueTrackerRegistry slowRegistry = new IssueTrackerRegistry((p, localModuleKey) -> new InMemoryIssueTrackerCache() {
+      @Override
+      public void journalUnflushed() {
+        journaled.add(this);
+      }
+
+      @Override
+      public void shutdown() {
+        started.add(this);
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    // More trackers than flush threads, so that some flushes never start
+    int count = Runtime.getRuntime().availableProcessors() + 2;
+    for (int i = 0; i < count; i++) {
+      slowRegistry.getOrCreate(mockProject("project" + i), "project" + i);
+    }
+
+    slowRegistry.shutdown(100, TimeUnit.MILLISECONDS);
+
+    assertThat(journaled).isNotEmpty().doesNotContainAnyElementsOf(started);
+    assertThat(started.size() + journaled.size()).isEqualTo(count);
+    blocked.countDown();
+  }
+
+  private static IResourceChangeEvent event(int type, IProject project) {
+    IResourceChangeEvent event = mock(IResourceChangeEvent.class);
+    when(event.getType()).thenReturn(type);
+    when(event.getResource()).thenReturn(project);
+    return event;
+  }
+}
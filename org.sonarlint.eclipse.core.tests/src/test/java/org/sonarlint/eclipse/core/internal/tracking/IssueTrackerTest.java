@@ -23,6 +23,8 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonarlint.eclipse.core.internal.markers.TextRange;
@@ -163,9 +165,19 @@ public class IssueTrackerTest {
 
   @Test
   public void should_track_first_trackables_exactly() {
-    Collection<Trackable> trackables = Arrays.asList(mock(Trackable.class), mock(Trackable.class));
+    Collection<Trackable> trackables = Arrays.asList(trackable1, trackable2);
     tracker.matchAndTrackAsNew(file1, trackables);
-    assertThat(cache.getCurrentTrackables(file1)).isEqualTo(trackables);
+    assertThat(cache.getCurrentTrackables(file1)).extracting("line", "textRangeHash", "lineHash", "creationDate")
+      .containsExactly(tuple(trackable1.getLine(), trackable1.getTextRangeHash(), trackable1.getLineHash(), null),
+        tuple(trackable2.getLine(), trackable2.getTextRangeHash(), trackable2.getLineHash(), null));
+  }
+
+  @Test
+  public void should_keep_compact_tracked_issues() {
+    tracker.matchAndTrackAsNew(file1, Collections.singletonList(trackable1));
+    tracker.matchAndTrackAsNew(file1, Arrays.asList(trackable1, trackable2));
+
+    assertThat(cache.getCurrentTrackables(file1)).extracting(t -> t.getClass()).containsExactly(TrackedIssue.class, TrackedIssue.class);
   }
 
   @Test
@@ -482,4 +494,44 @@ public class IssueTrackerTest {
 
     assertThat(cache.getCurrentTrackables(file1)).isEmpty();
   }
+
+  @Test
+  public void should_compute_checksums_lazily_and_once() {
+    AtomicInteger reads = new AtomicInteger();
+    Supplier<String> textRangeContent = () -> {
+      reads.incrementAndGet();
+      return "foo(bar)";
+    };
+    Supplier<String> lineContent = () -> {
+      reads.incrementAndGet();
+      return "  foo(bar);\n";
+    };
+    IssueTrackable trackable = new IssueTrackable(mock(Issue.class), mock(TextRange.class), textRangeContent, lineContent);
+    assertThat(reads.get()).isZero();
+
+    long digestsBefore = DigestUtils.getThreadDigestCount();
+    assertThat(trackable.getTextRangeHash()).isEqualTo(new IssueTrackable(mock(Issue.class), mock(TextRange.class), "foo(bar)", null).getTextRangeHash());
+    assertThat(trackable.getTextRangeHash()).isEqualTo(trackable.getTextRangeHash());
+    assertThat(trackable.getLineHash()).isEqualTo(trackable.getLineHash());
+    assertThat(reads.get()).isEqualTo(2);
+    // one more for the reference trackable
+    assertThat(DigestUtils.getThreadDigestCount() - digestsBefore).isEqualTo(3);
+  }
+
+  @Test
+  public void should_not_compute_checksums_when_content_is_not_available() {
+    IssueTrackable trackable = new IssueTrackable(mock(Issue.class), mock(TextRange.class), () -> null, () -> null);
+    long digestsBefore = DigestUtils.getThreadDigestCount();
+    assertThat(trackable.getTextRangeHash()).isNull();
+    assertThat(trackable.getLineHash()).isNull();
+    assertThat(DigestUtils.getThreadDigestCount()).isEqualTo(digestsBefore);
+  }
+
+  @Test
+  public void should_keep_checksum_values_ignoring_whitespaces() {
+    String content = " a\tb\nc\u000Bd\fe\rf\u00A0g ";
+    assertThat(DigestUtils.digest(content)).isEqualTo(DigestUtils.digest(content.replaceAll("[\\s]", "")));
+    assertThat(DigestUtils.digest("abc")).isEqualTo("900150983cd24fb0d6963f7d28e17f72");
+    assertThat(DigestUtils.digest(" a b\tc\n")).isEqualTo("900150983cd24fb0d6963f7d28e17f72");
+  }
 }
@@ -30,6 +30,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -52,27 +53,33 @@ public class MarkerUpdaterTest extends SonarTestCase {
 
   private static IProject project;
   private static final List<String> errors = new ArrayList<>();
+  private static final LogListener logListener = new LogListener() {
+    @Override
+    public void info(String msg, boolean fromAnalyzer) {
+    }
 
-  @BeforeClass
-  public static void prepare() throws Exception {
-    SonarLintLogger.get().addLogListener(new LogListener() {
-      @Override
-      public void info(String msg, boolean fromAnalyzer) {
-      }
+    @Override
+    public void error(String msg, boolean fromAnalyzer) {
+      errors.add(msg);
+    }
 
-      @Override
-      public void error(String msg, boolean fromAnalyzer) {
-        errors.add(msg);
-      }
+    @Override
+    public void debug(String msg, boolean fromAnalyzer) {
+    }
 
-      @Override
-      public void debug(String msg, boolean fromAnalyzer) {
-      }
+  };
 
-    });
+  @BeforeClass
+  public static void prepare() throws Exception {
+    SonarLintLogger.get().addLogListener(logListener);
     project = importEclipseProject("reference");
   }
 
+  @AfterClass
+  public static void removeLogListener() {
+    SonarLintLogger.get().removeLogListener(logListener);
+  }
+
   @Before
   public void cleanup() throws Exception {
     errors.clear();
@@ -188,7 +195,27 @@ public class MarkerUpdaterTest extends SonarTestCase {
     when(trackable.getCreationDate()).thenReturn(creationDate);
 
     IMarker marker = processTrackable(trackable);
-    assertThat(marker.getAttribute(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR)).isEqualTo(Long.toString(creationDate));
+    // stored with a precision of one second
+    assertThat(marker.getAttribute(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR)).isInstanceOf(Integer.class);
+    assertThat(MarkerUtils.getCreationDate(marker)).isEqualTo(creationDate / 1000 * 1000);
+  }
+
+  @Test
+  public void test_creation_date_after_2038() {
+    long creationDate = 4_200_000_000_000L;
+    assertThat(MarkerUtils.decodeCreationDate(MarkerUtils.encodeCreationDate(creationDate))).isEqualTo(creationDate);
+  }
+
+  @Test
+  public void test_marker_rule_name_is_shared() throws Exception {
+    Trackable trackable = newMockTrackable();
+    when(trackable.getRuleKey()).thenReturn("squid:S1234");
+    when(trackable.getRuleName()).thenReturn("Rule name");
+
+    IMarker marker = processTrackable(trackable);
+    assertThat(marker.getAttribute(MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR)).isEqualTo("squid:S1234");
+    assertThat(marker.getAttributes()).doesNotContainKey("rulename");
+    assertThat(MarkerUtils.getRuleName(marker)).isEqualTo("Rule name");
   }
 
   @Test
@@ -196,5 +223,6 @@ public class MarkerUpdaterTest extends SonarTestCase {
     Trackable trackable = newMockTrackable();
     IMarker marker = processTrackable(trackable);
     assertThat(marker.getAttribute(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR)).isNull();
+    assertThat(MarkerUtils.getCreationDate(marker)).isNull();
   }
 }
@@ -22,8 +22,13 @@ package org.sonarlint.eclipse.core.internal.tracking;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.eclipse.core.resources.IProject;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -47,7 +52,8 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
   private StubIssueStore stubIssueStore;
 
   class StubIssueStore extends IssueStore {
-    private final Map<String, Collection<Trackable>> cache = new HashMap<>();
+    private final Map<String, Collection<Trackable>> cache = new ConcurrentHashMap<>();
+    private final List<String> journal = new ArrayList<>();
 
     public StubIssueStore() throws IOException {
       super(temporaryFolder.newFolder().toPath(), temporaryFolder.newFolder().toPath());
@@ -58,6 +64,16 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
       cache.put(key, issues);
     }
 
+    @Override
+    public void saveAll(Map<String, Collection<Trackable>> issuesPerFile) throws IOException {
+      cache.putAll(issuesPerFile);
+    }
+
+    @Override
+    public void writeFlushJournal(Collection<String> keys) throws IOException {
+      journal.addAll(keys);
+    }
+
     @Override
     public Collection<Trackable> read(String key) throws IOException {
       return cache.get(key);
@@ -118,6 +134,19 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
     assertThat(stubIssueStore.size()).isEqualTo(count);
   }
 
+  @Test
+  public void should_journal_unflushed_files() {
+    cache.journalUnflushed();
+    assertThat(stubIssueStore.journal).isEmpty();
+
+    cache.put("file1", Collections.emptyList());
+    cache.put("file2", Collections.emptyList());
+    cache.journalUnflushed();
+
+    assertThat(stubIssueStore.journal).containsOnly("file1", "file2");
+    assertThat(stubIssueStore.size()).isEqualTo(0);
+  }
+
   @Test
   public void should_return_empty_for_file_never_analyzed() {
     String file = "nonexistent";
@@ -154,4 +183,34 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
     assertThat(cache.getCurrentTrackables(file)).isEmpty();
     assertThat(stubIssueStore.size()).isEqualTo(0);
   }
+
+  @Test
+  public void should_never_lose_issues_when_used_concurrently() throws Exception {
+    int threads = 4;
+    int filesPerThread = PersistentIssueTrackerCache.MAX_ENTRIES;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < filesPerThread; i++) {
+            String file = "file" + thread + "_" + i;
+            Collection<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
+            cache.put(file, trackables);
+            assertThat(cache.isFirstAnalysis(file)).isFalse();
+            assertThat(cache.getCurrentTrackables(file)).hasSize(1);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    cache.flushAll();
+    assertThat(stubIssueStore.size()).isEqualTo(threads * filesPerThread);
+  }
 }
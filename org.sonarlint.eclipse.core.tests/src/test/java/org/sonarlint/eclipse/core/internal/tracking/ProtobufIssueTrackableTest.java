@@ -42,4 +42,10 @@ public class ProtobufIssueTrackableTest {
   public void should_return_null_creationDate_when_unset() {
     assertThat(empty.getCreationDate()).isNull();
   }
+
+  @Test
+  public void should_return_null_textRange_and_hash_when_unset() {
+    assertThat(empty.getTextRange()).isNull();
+    assertThat(empty.getTextRangeHash()).isNull();
+  }
 }
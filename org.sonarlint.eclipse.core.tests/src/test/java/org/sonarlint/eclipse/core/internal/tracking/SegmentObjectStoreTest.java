@@ -0,0 +1,242 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SegmentObjectStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path dir;
+  private List<Runnable> compactions = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    dir = temporaryFolder.newFolder().toPath();
+  }
+
+  private SegmentObjectStore<String> newStore() {
+    return new SegmentObjectStore<>(dir, SegmentObjectStoreTest::readString,
+      (out, value) -> {
+        try {
+          out.write(value.getBytes(UTF_8));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, compactions::add);
+  }
+
+  private static String readString(InputStream in) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Test
+  public void should_read_latest_version_after_reopening() throws IOException {
+    SegmentObjectStore<String> store = newStore();
+    store.write("a", "1");
+    store.write("b", "2");
+    store.write("a", "3");
+    store.delete("b");
+    store.close();
+
+    SegmentObjectStore<String> reopened = newStore();
+    assertThat(reopened.read("a")).contains("3");
+    assertThat(reopened.read("b")).isEmpty();
+    assertThat(reopened.keys()).containsOnly("a");
+  }
+
+  @Test
+  public void should_discard_torn_tail() throws IOException {
+    SegmentObjectStore<String> store = newStore();
+    store.write("a", "1");
+    store.write("b", "2");
+    store.close();
+    Path segment = singleSegment();
+    long size = Files.size(segment);
+    // Header of a record whose append was interrupted
+    Files.write(segment, new byte[] {0, 0, 0, 1, 0, 0}, StandardOpenOption.APPEND);
+
+    SegmentObjectStore<String> reopened = newStore();
+
+    assertThat(reopened.keys()).containsOnly("a", "b");
+    assertThat(Files.size(segment)).isEqualTo(size);
+    // Next appends are readable
+    reopened.write("c", "3");
+    reopened.close();
+    assertThat(newStore().read("c")).contains("3");
+  }
+
+  @Test
+  public void should_truncate_segment_at_corrupted_record() throws IOException {
+    SegmentObjectStore<String> store = newStore();
+    store.write("a", "1");
+    store.close();
+    long firstRecordSize = Files.size(singleSegment());
+    store.write("b", "2");
+    store.write("c", "3");
+    store.close();
+    // Corrupt the value of the second record, its CRC doesn't match anymore
+    Path segment = singleSegment();
+    byte[] content = Files.readAllBytes(segment);
+    content[(int) firstRecordSize + 8 + 1] = '9';
+    Files.write(segment, content);
+
+    SegmentObjectStore<String> reopened = newStore();
+
+    assertThat(reopened.read("a")).contains("1");
+    // Records after the corrupted one can't be trusted either
+    assertThat(reopened.keys()).containsOnly("a");
+    assertThat(Files.size(segment)).isEqualTo(firstRecordSize);
+  }
+
+  @Test
+  public void should_delete_older_generations() throws IOException {
+    SegmentObjectStore<String> store = newStore();
+    store.write("a", "1");
+    store.close();
+    // Left by a compaction interrupted after the new generation was written
+    Files.copy(singleSegment(), dir.resolve("segment-2.log"));
+    Files.write(dir.resolve("segment-1.log"), new byte[] {1, 2, 3});
+
+    SegmentObjectStore<String> reopened = newStore();
+
+    assertThat(reopened.read("a")).contains("1");
+    assertThat(segments()).extracting(p -> p.getFileName().toString()).containsExactly("segment-2.log");
+  }
+
+  @Test
+  public void should_hide_previous_generations_when_cleared() throws IOException {
+    SegmentObjectStore<String> store = newStore();
+    store.write("a", "1");
+
+    store.clear();
+
+    assertThat(store.keys()).isEmpty();
+    assertThat(newStore().read("a")).isEmpty();
+    assertThat(segments()).extracting(p -> p.getFileName().toString()).containsExactly("segment-1.log");
+  }
+
+  @Test
+  public void should_schedule_compaction_when_mostly_garbage() throws IOException {
+    SegmentObjectStore<String> store = newStore();
+    String value = new String(new char[1024]).replace('\0', 'v');
+    for (int i = 0; i < SegmentObjectStore.MIN_GARBAGE_FOR_COMPACTION / 1024; i++) {
+      store.write("a", value + i);
+    }
+    store.write("b", "b");
+    assertThat(compactions).hasSize(1);
+    long sizeBefore = Files.size(singleSegment());
+
+    compactions.get(0).run();
+
+    assertThat(segments()).hasSize(1);
+    assertThat(Files.size(singleSegment())).isLessThan(sizeBefore / 100);
+    assertThat(store.read("a")).contains(value + (SegmentObjectStore.MIN_GARBAGE_FOR_COMPACTION / 1024 - 1));
+    assertThat(store.read("b")).contains("b");
+  }
+
+  @Test
+  public void should_keep_entries_written_during_compaction() throws Exception {
+    SegmentObjectStore<String> store = newStore();
+    AtomicBoolean stop = new AtomicBoolean();
+    Thread compacting = new Thread(() -> {
+      while (!stop.get()) {
+        try {
+          store.compact();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    });
+    compacting.start();
+    Map<String, String> expected = new HashMap<>();
+    try {
+      for (int i = 0; i < 20_000; i++) {
+        String key = "key" + (i % 100);
+        if (i % 7 == 0) {
+          store.delete(key);
+          expected.remove(key);
+        } else {
+          store.write(key, "value" + i);
+          expected.put(key, "value" + i);
+        }
+      }
+    } finally {
+      stop.set(true);
+      compacting.join();
+    }
+
+    assertContent(store, expected);
+    store.close();
+    assertContent(newStore(), expected);
+  }
+
+  private static void assertContent(SegmentObjectStore<String> store, Map<String, String> expected) throws IOException {
+    assertThat(store.keys()).containsOnlyElementsOf(expected.keySet()).hasSameSizeAs(expected.keySet());
+    for (Map.Entry<String, String> entry : expected.entrySet()) {
+      assertThat(store.read(entry.getKey())).isEqualTo(Optional.of(entry.getValue()));
+    }
+  }
+
+  private Path singleSegment() throws IOException {
+    List<Path> segments = segments();
+    assertThat(segments).hasSize(1);
+    return segments.get(0);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.filter(p -> p.getFileName().toString().startsWith(SegmentObjectStore.SEGMENT_PREFIX)).sorted().collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StripedLocksTest {
+
+  @Test
+  public void should_round_stripes_to_power_of_two() {
+    assertThat(new StripedLocks().getStripes()).isEqualTo(StripedLocks.DEFAULT_STRIPES);
+    assertThat(new StripedLocks(1).getStripes()).isEqualTo(1);
+    assertThat(new StripedLocks(5).getStripes()).isEqualTo(8);
+    assertThat(new StripedLocks(16).getStripes()).isEqualTo(16);
+  }
+
+  @Test
+  public void should_map_same_file_to_same_lock() {
+    StripedLocks locks = new StripedLocks();
+    Lock lock = locks.lock("src/Foo.java");
+    lock.unlock();
+    Lock other = locks.lock("src/Foo.java");
+    other.unlock();
+
+    assertThat(other).isSameAs(lock);
+    assertThat(locks.getAcquisitions()).isEqualTo(2);
+    assertThat(locks.getContendedAcquisitions()).isZero();
+  }
+
+  @Test
+  public void should_count_contended_acquisitions() throws InterruptedException {
+    StripedLocks locks = new StripedLocks();
+    Lock lock = locks.lock("src/Foo.java");
+    CountDownLatch started = new CountDownLatch(1);
+    Thread t = new Thread(() -> {
+      started.countDown();
+      locks.lock("src/Foo.java").unlock();
+    });
+    t.start();
+    started.await();
+    // let the other thread block on the lock
+    while (t.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    lock.unlock();
+    t.join();
+
+    assertThat(locks.getAcquisitions()).isEqualTo(2);
+    assertThat(locks.getContendedAcquisitions()).isEqualTo(1);
+    assertThat(locks.getWaitTime(TimeUnit.NANOSECONDS)).isPositive();
+  }
+
+  @Test
+  public void should_lock_all_stripes() throws InterruptedException {
+    StripedLocks locks = new StripedLocks(4);
+    locks.lockAll();
+    try {
+      boolean[] acquired = new boolean[1];
+      Thread t = new Thread(() -> {
+        Lock lock = locks.lock("any file");
+        acquired[0] = true;
+        lock.unlock();
+      });
+      t.start();
+      t.join(100);
+      assertThat(acquired[0]).isFalse();
+      locks.unlockAll();
+      t.join();
+      assertThat(acquired[0]).isTrue();
+    } finally {
+      locks.unlockAll();
+    }
+  }
+}
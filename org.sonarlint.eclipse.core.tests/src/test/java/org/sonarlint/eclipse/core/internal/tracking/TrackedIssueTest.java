@@ -0,0 +1,110 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TrackedIssueTest {
+
+  @Test
+  public void should_copy_tracked_fields() {
+    Trackable trackable = mock(Trackable.class);
+    when(trackable.getRuleKey()).thenReturn("squid:S123");
+    when(trackable.getRuleName()).thenReturn("Rule name");
+    when(trackable.getSeverity()).thenReturn("MAJOR");
+    when(trackable.getMessage()).thenReturn("message");
+    when(trackable.getServerIssueKey()).thenReturn("AVxyz");
+    when(trackable.getAssignee()).thenReturn("admin");
+    when(trackable.getLine()).thenReturn(12);
+    when(trackable.getTextRangeHash()).thenReturn(-1);
+    when(trackable.getLineHash()).thenReturn(0);
+    when(trackable.getCreationDate()).thenReturn(123L);
+    when(trackable.isResolved()).thenReturn(true);
+    when(trackable.getTextRange()).thenReturn(new TextRange(12, 3, 14, 5));
+
+    TrackedIssue issue = TrackedIssue.of(trackable);
+
+    assertThat(issue.getRuleKey()).isEqualTo("squid:S123");
+    assertThat(issue.getRuleName()).isEqualTo("Rule name");
+    assertThat(issue.getSeverity()).isEqualTo("MAJOR");
+    assertThat(issue.getMessage()).isEqualTo("message");
+    assertThat(issue.getServerIssueKey()).isEqualTo("AVxyz");
+    assertThat(issue.getAssignee()).isEqualTo("admin");
+    assertThat(issue.getLine()).isEqualTo(12);
+    assertThat(issue.getTextRangeHash()).isEqualTo(-1);
+    assertThat(issue.getLineHash()).isEqualTo(0);
+    assertThat(issue.getCreationDate()).isEqualTo(123L);
+    assertThat(issue.isResolved()).isTrue();
+    assertThat(issue.getTextRange()).extracting("startLine", "startLineOffset", "endLine", "endLineOffset").containsExactly(12, 3, 14, 5);
+    assertThat(TrackedIssue.of(issue)).isSameAs(issue);
+  }
+
+  @Test
+  public void should_preserve_null_values() {
+    Trackable trackable = mock(Trackable.class);
+    when(trackable.getTextRange()).thenReturn(new TextRange(7));
+
+    TrackedIssue issue = TrackedIssue.of(trackable);
+
+    assertThat(issue.getLine()).isNull();
+    assertThat(issue.getTextRangeHash()).isNull();
+    assertThat(issue.getLineHash()).isNull();
+    assertThat(issue.getCreationDate()).isNull();
+    assertThat(issue.getServerIssueKey()).isNull();
+    assertThat(issue.isResolved()).isFalse();
+    assertThat(issue.getTextRange()).extracting("startLine", "startLineOffset", "endLine", "endLineOffset").containsExactly(7, null, null, null);
+    assertThat(TrackedIssue.of(mock(Trackable.class)).getTextRange()).isNull();
+  }
+
+  @Test
+  public void should_intern_repeated_strings() {
+    TrackedIssue issue1 = TrackedIssue.of(trackable(new String("message"), new String("squid:S123")));
+    TrackedIssue issue2 = TrackedIssue.of(trackable(new String("message"), new String("squid:S123")));
+
+    assertThat(issue1.getMessage()).isSameAs(issue2.getMessage());
+    assertThat(issue1.getRuleKey()).isSameAs(issue2.getRuleKey());
+  }
+
+  /**
+   * Tracked issues are kept in the tracker cache, they should not retain engine issues and their input files.
+   */
+  @Test
+  public void should_only_retain_primitive_values_and_strings() {
+    for (Field field : TrackedIssue.class.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        assertThat(field.getType().isPrimitive() || field.getType() == String.class).as(field.getName()).isTrue();
+      }
+    }
+  }
+
+  private static Trackable trackable(String message, String ruleKey) {
+    Trackable trackable = mock(Trackable.class);
+    when(trackable.getMessage()).thenReturn(message);
+    when(trackable.getRuleKey()).thenReturn(ruleKey);
+    return trackable;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProjectLocationIndexTest {
+
+  private final List<IProject> projects = new ArrayList<>();
+  private int builds;
+  private final ProjectLocationIndex index = new ProjectLocationIndex(() -> {
+    builds++;
+    return projects.toArray(new IProject[0]);
+  });
+
+  @Test
+  public void should_find_nested_projects_most_specific_first() {
+    IProject outer = project(new Path("/ws/outer"));
+    IProject inner = project(new Path("/ws/outer/modules/inner"));
+
+    assertThat(index.findProjectsContaining(new Path("/ws/outer/modules/inner/src/Foo.java"))).containsExactly(inner, outer);
+    assertThat(index.findProjectsContaining(new Path("/ws/outer/modules/Foo.java"))).containsExactly(outer);
+    assertThat(index.findProjectsContaining(new Path("/ws/outer"))).containsExactly(outer);
+    assertThat(index.findProjectsContaining(new Path("/ws/Foo.java"))).isEmpty();
+  }
+
+  @Test
+  public void should_match_whole_segments_only() {
+    IProject project = project(new Path("/ws/foo"));
+    IProject overlapping = project(new Path("/ws/foobar"));
+
+    assertThat(index.findProjectsContaining(new Path("/ws/foobar/Foo.java"))).containsExactly(overlapping);
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/Foo.java"))).containsExactly(project);
+    assertThat(index.findProjectsContaining(new Path("/ws/fo/Foo.java"))).isEmpty();
+  }
+
+  @Test
+  public void should_find_projects_sharing_a_location() {
+    IProject project1 = project(new Path("/ws/foo"));
+    IProject project2 = project(new Path("/ws/foo"));
+
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/Foo.java"))).containsOnly(project1, project2);
+  }
+
+  @Test
+  public void should_ignore_case_of_devices() {
+    IProject onC = project(windowsPath("C:", "ws", "foo"));
+    project(windowsPath("D:", "ws", "foo"));
+    project(new Path("/ws/foo"));
+
+    assertThat(index.findProjectsContaining(windowsPath("c:", "ws", "foo", "Foo.java"))).containsExactly(onC);
+  }
+
+  @Test
+  public void should_ignore_device_case_in_any_locale() {
+    Locale defaultLocale = Locale.getDefault();
+    // Upper case of 'i' is a dotted 'I' in Turkish
+    Locale.setDefault(new Locale("tr"));
+    try {
+      IProject project = project(windowsPath("I:", "ws"));
+
+      assertThat(index.findProjectsContaining(windowsPath("i:", "ws", "Foo.java"))).containsExactly(project);
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  public void should_ignore_projects_without_location() {
+    project(null);
+    IProject project = project(new Path("/ws/foo"));
+
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/Foo.java"))).containsExactly(project);
+  }
+
+  @Test
+  public void should_rebuild_after_project_delta() {
+    IProject project = project(new Path("/ws/foo"));
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/Foo.java"))).containsExactly(project);
+    IProject added = project(new Path("/ws/foo/bar"));
+
+    // Content changes don't affect locations
+    index.resourceChanged(event(projectDelta(IResourceDelta.CHANGED, IResourceDelta.CONTENT)));
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/bar/Foo.java"))).containsExactly(project);
+
+    index.resourceChanged(event(projectDelta(IResourceDelta.ADDED, 0)));
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/bar/Foo.java"))).containsExactly(added, project);
+
+    projects.remove(added);
+    index.resourceChanged(event(projectDelta(IResourceDelta.CHANGED, IResourceDelta.OPEN)));
+    assertThat(index.findProjectsContaining(new Path("/ws/foo/bar/Foo.java"))).containsExactly(project);
+    assertThat(builds).isEqualTo(3);
+  }
+
+  private IProject project(IPath location) {
+    IProject project = mock(IProject.class);
+    when(project.getLocation()).thenReturn(location);
+    projects.add(project);
+    return project;
+  }
+
+  /**
+   * Devices are only parsed on Windows
+   */
+  private static IPath windowsPath(String device, String... segments) {
+    IPath path = mock(IPath.class);
+    when(path.getDevice()).thenReturn(device);
+    when(path.segments()).thenReturn(segments);
+    return path;
+  }
+
+  private static IResourceDelta projectDelta(int kind, int flags) {
+    IResource resource = mock(IResource.class);
+    when(resource.getType()).thenReturn(IResource.PROJECT);
+    IResourceDelta delta = mock(IResourceDelta.class);
+    when(delta.getResource()).thenReturn(resource);
+    when(delta.getKind()).thenReturn(kind);
+    when(delta.getFlags()).thenReturn(flags);
+    return delta;
+  }
+
+  private static IResourceChangeEvent event(IResourceDelta projectDelta) {
+    IResourceDelta rootDelta = mock(IResourceDelta.class);
+    when(rootDelta.getAffectedChildren()).thenReturn(new IResourceDelta[] {projectDelta});
+    IResourceChangeEvent event = mock(IResourceChangeEvent.class);
+    when(event.getType()).thenReturn(IResourceChangeEvent.POST_CHANGE);
+    when(event.getDelta()).thenReturn(rootDelta);
+    return event;
+  }
+}
@@ -21,14 +21,16 @@ package org.sonarlint.eclipse.core;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 import org.sonarlint.eclipse.core.internal.jobs.LogListener;
 
 public class SonarLintLogger {
   private static final SonarLintLogger instance = new SonarLintLogger();
-  private final List<LogListener> logListeners = new ArrayList<>();
+  // Listeners are rarely modified, but iterated from many threads
+  private final List<LogListener> logListeners = new CopyOnWriteArrayList<>();
 
   private SonarLintLogger() {
     // singleton
@@ -59,11 +61,10 @@ public class SonarLintLogger {
   }
 
   public void error(String msg, Throwable t) {
+    String stack = stackTraceToString(t);
     for (LogListener listener : logListeners) {
       listener.error(msg, false);
-      StringWriter stack = new StringWriter();
-      t.printStackTrace(new PrintWriter(stack));
-      listener.error(stack.toString(), false);
+      listener.error(stack, false);
     }
   }
 
@@ -79,25 +80,57 @@ public class SonarLintLogger {
     }
   }
 
+  public boolean isDebugEnabled() {
+    for (LogListener listener : logListeners) {
+      if (listener.isDebugEnabled()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public void debug(String msg) {
     for (LogListener listener : logListeners) {
-      listener.debug(msg, false);
+      if (listener.isDebugEnabled()) {
+        listener.debug(msg, false);
+      }
+    }
+  }
+
+  /**
+   * The message is only built if at least one listener accepts debug messages.
+   */
+  public void debug(Supplier<String> msgSupplier) {
+    if (isDebugEnabled()) {
+      debug(msgSupplier.get());
     }
   }
 
   public void analyzerDebug(String msg) {
     for (LogListener listener : logListeners) {
-      listener.debug(msg, true);
+      if (listener.isDebugEnabled()) {
+        listener.debug(msg, true);
+      }
     }
   }
 
   public void debug(String msg, Throwable t) {
+    if (!isDebugEnabled()) {
+      return;
+    }
+    String stack = stackTraceToString(t);
     for (LogListener listener : logListeners) {
-      listener.debug(msg, false);
-      StringWriter stack = new StringWriter();
-      t.printStackTrace(new PrintWriter(stack));
-      listener.debug(stack.toString(), false);
+      if (listener.isDebugEnabled()) {
+        listener.debug(msg, false);
+        listener.debug(stack, false);
+      }
     }
   }
 
+  private static String stackTraceToString(Throwable t) {
+    StringWriter stack = new StringWriter();
+    t.printStackTrace(new PrintWriter(stack));
+    return stack.toString();
+  }
+
 }
@@ -26,6 +26,7 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Platform;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProject;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProperty;
+import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerRegistry;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 
 public class PreferencesUtils {
@@ -36,6 +37,10 @@ public class PreferencesUtils {
   public static final String PREF_EXTRA_ARGS_DEFAULT = ""; //$NON-NLS-1$
   public static final String PREF_TEST_FILE_REGEXPS = "testFileRegexps"; //$NON-NLS-1$
   public static final String PREF_TEST_FILE_REGEXPS_DEFAULT = "**/*Test.*,**/test/**/*"; //$NON-NLS-1$
+  public static final String PREF_CHANGESET_REFRESH_MAX_AGE = "changeSetRefreshMaxAge"; //$NON-NLS-1$
+  public static final int PREF_CHANGESET_REFRESH_MAX_AGE_DEFAULT = 30;
+  public static final String PREF_SHUTDOWN_FLUSH_TIMEOUT = "shutdownFlushTimeout"; //$NON-NLS-1$
+  public static final int PREF_SHUTDOWN_FLUSH_TIMEOUT_DEFAULT = IssueTrackerRegistry.DEFAULT_SHUTDOWN_TIMEOUT_SECONDS;
 
   private PreferencesUtils() {
     // Utility class
@@ -45,6 +50,20 @@ public class PreferencesUtils {
     return Platform.getPreferencesService().getString(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_TEST_FILE_REGEXPS, PREF_TEST_FILE_REGEXPS_DEFAULT, null);
   }
 
+  /**
+   * @return maximum age, in seconds, of the SCM status of a project to be reused when collecting the change set
+   */
+  public static int getChangeSetRefreshMaxAge() {
+    return Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_CHANGESET_REFRESH_MAX_AGE, PREF_CHANGESET_REFRESH_MAX_AGE_DEFAULT, null);
+  }
+
+  /**
+   * @return maximum time, in seconds, spent persisting issues when the IDE is closed
+   */
+  public static int getShutdownFlushTimeout() {
+    return Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_SHUTDOWN_FLUSH_TIMEOUT, PREF_SHUTDOWN_FLUSH_TIMEOUT_DEFAULT, null);
+  }
+
   public static int getMarkerSeverity() {
     return Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_MARKER_SEVERITY, PREF_MARKER_SEVERITY_DEFAULT, null);
   }
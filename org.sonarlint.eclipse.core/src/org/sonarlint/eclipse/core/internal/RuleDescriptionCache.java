@@ -0,0 +1,197 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.server.IServer;
+import org.sonarlint.eclipse.core.internal.server.ServersManager;
+
+/**
+ * Bounded cache of rule descriptions, as returned by the engine of a server (or the standalone engine for unbound projects).
+ * On cache miss, the description is loaded from the engine by the calling thread, so callers should avoid the UI thread.
+ */
+public class RuleDescriptionCache {
+
+  static final int MAX_ENTRIES = 500;
+
+  private static final String NOT_FOUND = "Not found";
+
+  private final Map<Key, String> cache = new LimitedSizeLinkedHashMap();
+
+  private long generation;
+
+  /**
+   * Keeps a maximum number of entries in the map. On insertion, if the limit is passed, the entry accessed the longest time ago
+   * is removed from the map.
+   */
+  private static class LimitedSizeLinkedHashMap extends LinkedHashMap<Key, String> {
+    LimitedSizeLinkedHashMap() {
+      super(MAX_ENTRIES, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  }
+
+  /**
+   * @param serverId null for the standalone engine
+   */
+  public String getHtmlRuleDescription(@Nullable String serverId, String ruleKey) {
+    Key key = new Key(serverId, ruleKey);
+    long generationBeforeLoad;
+    synchronized (this) {
+      String cached = cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      generationBeforeLoad = generation;
+    }
+    // Loading is done outside of the lock, engines are slow to answer while they are updating their storage
+    String description = load(serverId, ruleKey);
+    if (description == null) {
+      // Unknown server, don't pollute the cache
+      return NOT_FOUND;
+    }
+    synchronized (this) {
+      // Don't cache a description loaded before the storage was updated
+      if (generationBeforeLoad == generation) {
+        cache.put(key, description);
+      }
+    }
+    return description;
+  }
+
+  @CheckForNull
+  public synchronized String getIfPresent(@Nullable String serverId, String ruleKey) {
+    return cache.get(new Key(serverId, ruleKey));
+  }
+
+  /**
+   * Load descriptions of the given rules in background, so that they are immediately available when an issue is selected.
+   */
+  public void prefetch(@Nullable String serverId, Collection<String> ruleKeys) {
+    List<String> missingRuleKeys = ruleKeys.stream()
+      .distinct()
+      .filter(ruleKey -> getIfPresent(serverId, ruleKey) == null)
+      .collect(Collectors.toList());
+    if (missingRuleKeys.isEmpty()) {
+      return;
+    }
+    Job job = new Job("Prefetch SonarLint rule descriptions") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        for (String ruleKey : missingRuleKeys) {
+          if (monitor.isCanceled()) {
+            return Status.CANCEL_STATUS;
+          }
+          try {
+            getHtmlRuleDescription(serverId, ruleKey);
+          } catch (Exception e) {
+            SonarLintLogger.get().debug("Unable to prefetch description of rule " + ruleKey, e);
+          }
+        }
+        return Status.OK_STATUS;
+      }
+    };
+    job.setSystem(true);
+    job.setPriority(Job.DECORATE);
+    job.schedule();
+  }
+
+  /**
+   * Forget descriptions coming from the given server, for example because its storage was updated.
+   *
+   * @param serverId null for the standalone engine
+   */
+  public synchronized void invalidate(@Nullable String serverId) {
+    cache.keySet().removeIf(key -> Objects.equals(key.serverId, serverId));
+    generation++;
+  }
+
+  public synchronized void clear() {
+    cache.clear();
+    generation++;
+  }
+
+  /**
+   * Incremented each time some descriptions are invalidated. Can be used by clients to know when their derived data is outdated.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  @CheckForNull
+  private static String load(@Nullable String serverId, String ruleKey) {
+    if (serverId == null) {
+      return SonarLintCorePlugin.getDefault().getDefaultSonarLintClientFacade().getHtmlRuleDescription(ruleKey);
+    }
+    IServer server = ServersManager.getInstance().getServer(serverId);
+    if (server == null) {
+      return null;
+    }
+    return server.getHtmlRuleDescription(ruleKey);
+  }
+
+  private static class Key {
+    private final String serverId;
+    private final String ruleKey;
+
+    Key(@Nullable String serverId, String ruleKey) {
+      this.serverId = serverId;
+      this.ruleKey = ruleKey;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key that = (Key) o;
+      // start with most discriminant field
+      return ruleKey.equals(that.ruleKey)
+        && Objects.equals(serverId, that.serverId);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = ruleKey.hashCode();
+      result = 31 * result + (serverId != null ? serverId.hashCode() : 0);
+      return result;
+    }
+  }
+
+}
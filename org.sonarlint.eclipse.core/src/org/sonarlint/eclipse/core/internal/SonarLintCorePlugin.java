@@ -21,6 +21,7 @@ package org.sonarlint.eclipse.core.internal;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.net.proxy.IProxyService;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -29,7 +30,10 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.util.tracker.ServiceTracker;
 import org.sonarlint.eclipse.core.AbstractPlugin;
+import org.sonarlint.eclipse.core.internal.jobs.ChangedFilesCollector;
 import org.sonarlint.eclipse.core.internal.jobs.StandaloneSonarLintClientFacade;
+import org.sonarlint.eclipse.core.internal.markers.IssueIndex;
+import org.sonarlint.eclipse.core.internal.markers.MarkerRuleTable;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectManager;
 import org.sonarlint.eclipse.core.internal.tracking.IssueStore;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
@@ -37,6 +41,7 @@ import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerCacheFactory;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerRegistry;
 import org.sonarlint.eclipse.core.internal.tracking.PersistentIssueTrackerCache;
 import org.sonarlint.eclipse.core.internal.tracking.ServerIssueUpdater;
+import org.sonarlint.eclipse.core.internal.utils.ProjectLocationIndex;
 
 public class SonarLintCorePlugin extends AbstractPlugin {
 
@@ -50,6 +55,11 @@ public class SonarLintCorePlugin extends AbstractPlugin {
 
   private IssueTrackerRegistry issueTrackerRegistry;
   private ServerIssueUpdater serverIssueUpdater;
+  private final RuleDescriptionCache ruleDescriptionCache = new RuleDescriptionCache();
+  private final ProjectLocationIndex projectLocationIndex = new ProjectLocationIndex();
+  private final MarkerRuleTable markerRuleTable = new MarkerRuleTable();
+  private final IssueIndex issueIndex = new IssueIndex();
+  private final ChangedFilesCollector changedFilesCollector = new ChangedFilesCollector();
 
   private StandaloneSonarLintClientFacade sonarlint;
   private final ServiceTracker proxyTracker;
@@ -77,6 +87,11 @@ public class SonarLintCorePlugin extends AbstractPlugin {
     super.start(context);
     sonarLintChangeListener = new SonarLintChangeListener();
     ResourcesPlugin.getWorkspace().addResourceChangeListener(sonarLintChangeListener, IResourceChangeEvent.POST_CHANGE);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(getProjectManager(),
+      IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | IResourceChangeEvent.POST_CHANGE);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(projectLocationIndex, IResourceChangeEvent.POST_CHANGE);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(issueIndex, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.POST_CHANGE);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(changedFilesCollector, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
 
     IssueTrackerCacheFactory factory = (project, localModuleKey) -> {
       Path projectBasePath = Paths.get(project.getLocation().toString());
@@ -85,6 +100,7 @@ public class SonarLintCorePlugin extends AbstractPlugin {
       return new PersistentIssueTrackerCache(issueStore);
     };
     issueTrackerRegistry = new IssueTrackerRegistry(factory);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(issueTrackerRegistry, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
 
     serverIssueUpdater = new ServerIssueUpdater(issueTrackerRegistry);
   }
@@ -92,13 +108,18 @@ public class SonarLintCorePlugin extends AbstractPlugin {
   @Override
   public void stop(BundleContext context) {
     ResourcesPlugin.getWorkspace().removeResourceChangeListener(sonarLintChangeListener);
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(getProjectManager());
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectLocationIndex);
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(issueIndex);
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(changedFilesCollector);
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(issueTrackerRegistry);
     if (sonarlint != null) {
       sonarlint.stop();
     }
     proxyTracker.close();
 
     serverIssueUpdater.shutdown();
-    issueTrackerRegistry.shutdown();
+    issueTrackerRegistry.shutdown(PreferencesUtils.getShutdownFlushTimeout(), TimeUnit.SECONDS);
 
     super.stop(context);
   }
@@ -118,10 +139,34 @@ public class SonarLintCorePlugin extends AbstractPlugin {
     return serverIssueUpdater;
   }
 
+  public RuleDescriptionCache getRuleDescriptionCache() {
+    return ruleDescriptionCache;
+  }
+
+  public MarkerRuleTable getMarkerRuleTable() {
+    return markerRuleTable;
+  }
+
+  public IssueIndex getIssueIndex() {
+    return issueIndex;
+  }
+
+  public ProjectLocationIndex getProjectLocationIndex() {
+    return projectLocationIndex;
+  }
+
+  public ChangedFilesCollector getChangedFilesCollector() {
+    return changedFilesCollector;
+  }
+
   public static IssueTracker getOrCreateIssueTracker(IProject project, String localModulePath) {
     return getDefault().issueTrackerRegistry.getOrCreate(project, localModulePath);
   }
 
+  public static IssueTrackerRegistry getIssueTrackerRegistry() {
+    return getDefault().issueTrackerRegistry;
+  }
+
   public static void clearIssueTracker(IProject project) {
     getDefault().issueTrackerRegistry.get(project).ifPresent(IssueTracker::clear);
   }
@@ -20,31 +20,40 @@
 package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
-import org.eclipse.team.core.RepositoryProvider;
-import org.eclipse.team.core.TeamException;
-import org.eclipse.team.core.subscribers.Subscriber;
-import org.eclipse.team.core.synchronize.SyncInfo;
 import org.sonarlint.eclipse.core.SonarLintLogger;
-import org.sonarlint.eclipse.core.internal.SonarLintChangeListener;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
-import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
 import org.sonarlint.eclipse.core.internal.utils.SonarLintUtils;
 
 public class AnalyzeChangedFilesJob extends WorkspaceJob {
   private static final String UNABLE_TO_ANALYZE_CHANGED_FILES = "Unable to analyze changed files";
+  private static final int MAX_PARALLEL_ANALYSES = 4;
   private final Collection<IProject> projects;
 
   public AnalyzeChangedFilesJob(Collection<IProject> projects) {
@@ -57,33 +66,26 @@ public class AnalyzeChangedFilesJob extends WorkspaceJob {
     SubMonitor global = SubMonitor.convert(monitor, 100);
     try {
       global.setTaskName("Collect changed file(s) list");
-      Arrays.asList(ResourcesPlugin.getWorkspace().getRoot().getProjects()).stream().forEach(MarkerUtils::deleteChangeSetIssuesMarkers);
-      Collection<IFile> collectChangedFiles = collectChangedFiles(projects, global.newChild(20));
+      Collection<IFile> collectChangedFiles = SonarLintCorePlugin.getDefault().getChangedFilesCollector().collectChangedFiles(projects, global.newChild(20));
+      if (monitor.isCanceled()) {
+        return Status.CANCEL_STATUS;
+      }
+      Map<IProject, Collection<IFile>> changedFilesPerProject = SonarLintUtils.aggregatePerMoreSpecificProject(collectChangedFiles);
+      deleteStaleChangeSetMarkers(changedFilesPerProject);
 
-      if (collectChangedFiles.isEmpty()) {
+      if (changedFilesPerProject.isEmpty()) {
         SonarLintLogger.get().info("No changed files found");
         return Status.OK_STATUS;
       }
 
-      Map<IProject, Collection<IFile>> changedFilesPerProject = SonarLintUtils.aggregatePerMoreSpecificProject(collectChangedFiles);
-
       long fileCount = changedFilesPerProject.values().stream().flatMap(Collection::stream).count();
 
       SonarLintLogger.get().info("Analyzing " + fileCount + " changed file(s) in " + changedFilesPerProject.keySet().size() + " project(s)");
 
       global.setTaskName("Analysis");
-      SubMonitor analysisMonitor = SubMonitor.convert(global.newChild(80), changedFilesPerProject.entrySet().size());
-      for (Map.Entry<IProject, Collection<IFile>> entry : changedFilesPerProject.entrySet()) {
-        SubMonitor projectAnalysisMonitor = analysisMonitor.newChild(1);
-        IProject project = entry.getKey();
-        global.setTaskName("Analysing project " + project.getName());
-        if (!project.isAccessible()) {
-          continue;
-        }
-        Collection<IFile> filesToAnalyze = entry.getValue();
-        AnalyzeProjectRequest req = new AnalyzeProjectRequest(project, filesToAnalyze, TriggerType.CHANGESET);
-        AnalyzeProjectJob job = new AnalyzeProjectJob(req);
-        job.runInWorkspace(projectAnalysisMonitor);
+      IStatus analysisStatus = analyzeInParallel(changedFilesPerProject, global.newChild(80));
+      if (!analysisStatus.isOK()) {
+        return analysisStatus;
       }
 
     } catch (Exception e) {
@@ -93,56 +95,101 @@ public class AnalyzeChangedFilesJob extends WorkspaceJob {
     return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
   }
 
-  private Collection<IFile> collectChangedFiles(Collection<IProject> projects, IProgressMonitor monitor) {
-    Collection<IFile> changedFiles = new ArrayList<>();
-    for (IProject project : projects) {
-      if (monitor.isCanceled()) {
-        break;
-      }
-      RepositoryProvider provider = RepositoryProvider.getProvider(project);
-      if (provider == null) {
-        SonarLintLogger.get().debug("Project " + project.getName() + " doesn't have any RepositoryProvider");
-        continue;
+  /**
+   * Markers of analyzed files are replaced during analysis, so only remove markers of files that are no more in the change set
+   */
+  private static void deleteStaleChangeSetMarkers(Map<IProject, Collection<IFile>> changedFilesPerProject) throws CoreException {
+    Set<IFile> changedFilesSet = new HashSet<>();
+    changedFilesPerProject.values().forEach(changedFilesSet::addAll);
+    IMarker[] changeSetMarkers = ResourcesPlugin.getWorkspace().getRoot().findMarkers(SonarLintCorePlugin.MARKER_CHANGESET_ID, false, IResource.DEPTH_INFINITE);
+    List<IMarker> staleMarkers = new ArrayList<>();
+    for (IMarker marker : changeSetMarkers) {
+      if (!changedFilesSet.contains(marker.getResource())) {
+        staleMarkers.add(marker);
       }
+    }
+    if (!staleMarkers.isEmpty()) {
+      ResourcesPlugin.getWorkspace().deleteMarkers(staleMarkers.toArray(new IMarker[0]));
+    }
+  }
 
-      Subscriber subscriber = provider.getSubscriber();
-      if (subscriber == null) {
-        // Seems to occurs with Rational ClearTeam Explorer
-        SonarLintLogger.get().debug("No Subscriber for provider " + provider.getID() + " on project " + project.getName());
-        continue;
+  private static IStatus analyzeInParallel(Map<IProject, Collection<IFile>> changedFilesPerProject, IProgressMonitor monitor) throws InterruptedException {
+    SubMonitor analysisMonitor = SubMonitor.convert(monitor, changedFilesPerProject.size());
+    // Progress monitors are not thread safe, so project analyses only use it to check cancellation
+    IProgressMonitor cancellationMonitor = new NullProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return monitor.isCanceled();
       }
-
-      try {
-        IResource[] roots = subscriber.roots();
-        if (Arrays.asList(roots).contains(project)) {
-          // Refresh
-          subscriber.refresh(new IResource[] {project}, IResource.DEPTH_INFINITE, monitor);
-
-          // Collect all the synchronization states and print
-          collect(subscriber, project, changedFiles);
-        } else {
-          SonarLintLogger.get().debug("Project " + project.getName() + " is not part of Subscriber roots");
+    };
+    int poolSize = Math.min(MAX_PARALLEL_ANALYSES, Math.min(changedFilesPerProject.size(), Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, poolSize), r -> {
+      Thread t = new Thread(r, "SonarLint change set analysis");
+      t.setDaemon(true);
+      return t;
+    });
+    List<IStatus> failures = new ArrayList<>();
+    try {
+      CompletionService<IStatus> completionService = new ExecutorCompletionService<>(executor);
+      int submitted = 0;
+      for (Map.Entry<IProject, Collection<IFile>> entry : changedFilesPerProject.entrySet()) {
+        IProject project = entry.getKey();
+        if (!project.isAccessible()) {
+          analysisMonitor.worked(1);
+          continue;
+        }
+        AnalyzeProjectRequest req = new AnalyzeProjectRequest(project, entry.getValue(), TriggerType.CHANGESET);
+        completionService.submit(() -> analyzeProject(req, cancellationMonitor));
+        submitted++;
+      }
+      for (int i = 0; i < submitted; i++) {
+        IStatus projectStatus = waitForNextProject(completionService, monitor);
+        if (projectStatus == null) {
+          return Status.CANCEL_STATUS;
+        }
+        if (!projectStatus.isOK() && projectStatus.getSeverity() != IStatus.CANCEL) {
+          failures.add(projectStatus);
         }
-      } catch (TeamException e) {
-        throw new IllegalStateException(UNABLE_TO_ANALYZE_CHANGED_FILES, e);
+        analysisMonitor.worked(1);
+        analysisMonitor.subTask((i + 1) + "/" + submitted + " project(s) analyzed");
       }
+    } finally {
+      executor.shutdownNow();
     }
-    return changedFiles;
+    if (monitor.isCanceled()) {
+      return Status.CANCEL_STATUS;
+    }
+    if (!failures.isEmpty()) {
+      return new MultiStatus(SonarLintCorePlugin.PLUGIN_ID, IStatus.WARNING, failures.toArray(new IStatus[0]), "Analysis failed for " + failures.size() + " project(s)",
+        null);
+    }
+    return Status.OK_STATUS;
   }
 
-  void collect(Subscriber subscriber, IResource resource, Collection<IFile> changedFiles) throws TeamException {
-    if (!SonarLintChangeListener.shouldAnalyze(resource)) {
-      return;
+  private static IStatus analyzeProject(AnalyzeProjectRequest req, IProgressMonitor cancellationMonitor) {
+    try {
+      return new AnalyzeProjectJob(req).runInWorkspace(cancellationMonitor);
+    } catch (Exception e) {
+      SonarLintLogger.get().error("Error during analysis of project " + req.getProject().getName(), e);
+      return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Error during analysis of project " + req.getProject().getName(), e);
     }
-    IFile file = (IFile) resource.getAdapter(IFile.class);
-    if (file != null) {
-      SyncInfo syncInfo = subscriber.getSyncInfo(resource);
-      if (syncInfo != null && !SyncInfo.isInSync(syncInfo.getKind())) {
-        changedFiles.add(file);
+  }
+
+  /**
+   * @return null if cancelled
+   */
+  @CheckForNull
+  private static IStatus waitForNextProject(CompletionService<IStatus> completionService, IProgressMonitor monitor) throws InterruptedException {
+    while (!monitor.isCanceled()) {
+      Future<IStatus> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+      if (future != null) {
+        try {
+          return future.get();
+        } catch (ExecutionException e) {
+          return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, UNABLE_TO_ANALYZE_CHANGED_FILES, e.getCause());
+        }
       }
     }
-    for (IResource child : subscriber.members(resource)) {
-      collect(subscriber, child, changedFiles);
-    }
+    return null;
   }
 }
@@ -137,7 +137,7 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
       return Status.CANCEL_STATUS;
     }
     long startTime = System.currentTimeMillis();
-    SonarLintLogger.get().debug("Trigger: " + request.getTriggerType().name());
+    SonarLintLogger.get().debug(() -> "Trigger: " + request.getTriggerType().name());
     SonarLintLogger.get().info(this.getName() + "...");
     // Analyze
     try {
@@ -161,7 +161,7 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
       }
 
       analysisCompleted(usedConfigurators, mergedExtraProps, monitor);
-      SonarLintLogger.get().debug(String.format("Done in %d ms", System.currentTimeMillis() - startTime));
+      SonarLintLogger.get().debug(() -> String.format("Done in %d ms", System.currentTimeMillis() - startTime));
     } catch (Exception e) {
       SonarLintLogger.get().error("Error during execution of SonarLint analysis", e);
       return new Status(Status.WARNING, SonarLintCorePlugin.PLUGIN_ID, "Error when executing SonarLint analysis", e);
@@ -177,7 +177,7 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
     // In some unfrequent cases the project may be virtual and don't have physical location
     Path projectBaseDir = projectLocation != null ? projectLocation.toFile().toPath() : ResourcesPlugin.getWorkspace().getRoot().getLocation().toFile().toPath();
     if (sonarProject.isBound()) {
-      SonarLintLogger.get().debug("Connected mode (using configuration of '" + sonarProject.getModuleKey() + "' in server '" + sonarProject.getServerId() + "')");
+      SonarLintLogger.get().debug(() -> "Connected mode (using configuration of '" + sonarProject.getModuleKey() + "' in server '" + sonarProject.getServerId() + "')");
       config = new ConnectedAnalysisConfiguration(trimToNull(sonarProject.getModuleKey()), projectBaseDir, projectSpecificWorkDir.toFile().toPath(), inputFiles, mergedExtraProps);
     } else {
       SonarLintLogger.get().debug("Standalone mode (project not bound)");
@@ -264,6 +264,15 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
     if (shouldUpdateServerIssues(triggerType)) {
       trackServerIssues(successfulFiles.keySet(), triggerType);
     }
+    prefetchRuleDescriptions(successfulFiles.values());
+  }
+
+  private void prefetchRuleDescriptions(Collection<List<Issue>> issues) {
+    Set<String> ruleKeys = issues.stream()
+      .flatMap(Collection::stream)
+      .map(Issue::getRuleKey)
+      .collect(Collectors.toSet());
+    SonarLintCorePlugin.getDefault().getRuleDescriptionCache().prefetch(getSonarProject().getServerId(), ruleKeys);
   }
 
   private void trackIssues(Map<IResource, List<Issue>> rawIssuesPerResource, TriggerType triggerType) throws CoreException {
@@ -297,13 +306,11 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
       return new IssueTrackable(issue);
     }
     TextRange textRange = new TextRange(startLine, issue.getStartLineOffset(), issue.getEndLine(), issue.getEndLineOffset());
-    String textRangeContent = null;
-    String lineContent = null;
-    if (document != null) {
-      textRangeContent = readTextRangeContent(resource, document, textRange);
-      lineContent = readLineContent(resource, document, startLine);
+    if (document == null) {
+      return new IssueTrackable(issue, textRange, (String) null, (String) null);
     }
-    return new IssueTrackable(issue, textRange, textRangeContent, lineContent);
+    // Content is only extracted from the document if the tracker needs the checksums
+    return new IssueTrackable(issue, textRange, () -> readTextRangeContent(resource, document, textRange), () -> readLineContent(resource, document, startLine));
   }
 
   @CheckForNull
@@ -363,7 +370,7 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
   @CheckForNull
   public AnalysisResults runAndCheckCancellation(final StandaloneAnalysisConfiguration config, final SonarLintProject project, final Map<IResource, List<Issue>> issuesPerResource,
     final IProgressMonitor monitor) {
-    SonarLintLogger.get().debug("Starting analysis with configuration:\n" + config.toString());
+    SonarLintLogger.get().debug(() -> "Starting analysis with configuration:\n" + config.toString());
     AnalysisThread t = new AnalysisThread(issuesPerResource, config, project);
     t.setDaemon(true);
     t.setUncaughtExceptionHandler((th, ex) -> SonarLintLogger.get().error("Error during analysis", ex));
@@ -0,0 +1,223 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.annotation.CheckForNull;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.team.core.RepositoryProvider;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.PreferencesUtils;
+import org.sonarlint.eclipse.core.internal.SonarLintChangeListener;
+
+/**
+ * Collect files that are out of sync with the SCM. Out of sync resources are requested directly to the team subscriber,
+ * instead of walking the whole project. Projects are refreshed in parallel, and a refresh is reused if recent enough.
+ * Refresh dates of closed and deleted projects are forgotten.
+ */
+public class ChangedFilesCollector implements IResourceChangeListener {
+
+  private static final String UNABLE_TO_COLLECT_CHANGED_FILES = "Unable to collect changed files";
+  // SCM refreshes are mostly I/O, but some providers don't like concurrent requests
+  private static final int MAX_PARALLEL_REFRESHES = 4;
+
+  private final Function<IProject, Subscriber> subscriberProvider;
+  private final LongSupplier maxRefreshAgeMs;
+
+  /**
+   * Last refresh date of each project, by name, in ms
+   */
+  private final Map<String, Long> lastRefreshByProject = new ConcurrentHashMap<>();
+
+  public ChangedFilesCollector() {
+    this(ChangedFilesCollector::getSubscriber, () -> TimeUnit.SECONDS.toMillis(PreferencesUtils.getChangeSetRefreshMaxAge()));
+  }
+
+  /**
+   * @param subscriberProvider SCM subscriber of a project, or null if the project is not shared
+   * @param maxRefreshAgeMs age of the last refresh of a project under which it is reused
+   */
+  public ChangedFilesCollector(Function<IProject, Subscriber> subscriberProvider, LongSupplier maxRefreshAgeMs) {
+    this.subscriberProvider = subscriberProvider;
+    this.maxRefreshAgeMs = maxRefreshAgeMs;
+  }
+
+  public Collection<IFile> collectChangedFiles(Collection<IProject> projects, IProgressMonitor monitor) {
+    if (projects.isEmpty()) {
+      return new ArrayList<>();
+    }
+    SubMonitor subMonitor = SubMonitor.convert(monitor, projects.size());
+    long maxAgeMs = maxRefreshAgeMs.getAsLong();
+    Collection<IFile> changedFiles = new ConcurrentLinkedQueue<>();
+    // Progress monitors are not thread safe, so project tasks only use it to check cancellation
+    IProgressMonitor cancellationMonitor = new NullProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return monitor.isCanceled();
+      }
+    };
+    int poolSize = Math.min(MAX_PARALLEL_REFRESHES, Math.min(projects.size(), Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, r -> {
+      Thread t = new Thread(r, "SonarLint change set collection");
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+      for (IProject project : projects) {
+        completionService.submit(() -> {
+          if (!cancellationMonitor.isCanceled()) {
+            collectChangedFiles(project, maxAgeMs, changedFiles, cancellationMonitor);
+          }
+          return null;
+        });
+      }
+      for (int i = 0; i < projects.size(); i++) {
+        waitForNextProject(completionService);
+        subMonitor.worked(1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+    return new ArrayList<>(changedFiles);
+  }
+
+  private static void waitForNextProject(CompletionService<Void> completionService) throws InterruptedException {
+    Future<Void> future = completionService.take();
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(UNABLE_TO_COLLECT_CHANGED_FILES, e.getCause());
+    }
+  }
+
+  @CheckForNull
+  private static Subscriber getSubscriber(IProject project) {
+    RepositoryProvider provider = RepositoryProvider.getProvider(project);
+    if (provider == null) {
+      SonarLintLogger.get().debug(() -> "Project " + project.getName() + " doesn't have any RepositoryProvider");
+      return null;
+    }
+
+    Subscriber subscriber = provider.getSubscriber();
+    if (subscriber == null) {
+      // Seems to occurs with Rational ClearTeam Explorer
+      SonarLintLogger.get().debug(() -> "No Subscriber for provider " + provider.getID() + " on project " + project.getName());
+    }
+    return subscriber;
+  }
+
+  private void collectChangedFiles(IProject project, long maxAgeMs, Collection<IFile> changedFiles, IProgressMonitor monitor) {
+    Subscriber subscriber = subscriberProvider.apply(project);
+    if (subscriber == null) {
+      return;
+    }
+
+    try {
+      IResource[] roots = subscriber.roots();
+      if (!Arrays.asList(roots).contains(project)) {
+        SonarLintLogger.get().debug(() -> "Project " + project.getName() + " is not part of Subscriber roots");
+        return;
+      }
+      refreshIfNeeded(subscriber, project, maxAgeMs, monitor);
+
+      SyncInfoSet outOfSync = new SyncInfoSet();
+      subscriber.collectOutOfSync(new IResource[] {project}, IResource.DEPTH_INFINITE, outOfSync, monitor);
+      for (IResource resource : outOfSync.getResources()) {
+        if (resource.getType() == IResource.FILE && shouldAnalyze(resource)) {
+          changedFiles.add((IFile) resource);
+        }
+      }
+    } catch (TeamException e) {
+      throw new IllegalStateException(UNABLE_TO_COLLECT_CHANGED_FILES, e);
+    }
+  }
+
+  private void refreshIfNeeded(Subscriber subscriber, IProject project, long maxAgeMs, IProgressMonitor monitor) throws TeamException {
+    Long lastRefresh = lastRefreshByProject.get(project.getName());
+    long now = System.currentTimeMillis();
+    if (lastRefresh != null && now - lastRefresh < maxAgeMs) {
+      SonarLintLogger.get().debug(() -> "Reuse SCM status of project " + project.getName() + " refreshed " + (now - lastRefresh) + "ms ago");
+      return;
+    }
+    subscriber.refresh(new IResource[] {project}, IResource.DEPTH_INFINITE, monitor);
+    if (!monitor.isCanceled()) {
+      lastRefreshByProject.put(project.getName(), now);
+    }
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    if ((event.getType() == IResourceChangeEvent.PRE_CLOSE || event.getType() == IResourceChangeEvent.PRE_DELETE)
+      && event.getResource() instanceof IProject) {
+      lastRefreshByProject.remove(event.getResource().getName());
+    }
+  }
+
+  /**
+   * Number of projects whose last refresh date is kept.
+   */
+  public int getRefreshedProjectCount() {
+    return lastRefreshByProject.size();
+  }
+
+  /**
+   * Same as walking the tree with {@link SonarLintChangeListener#shouldAnalyze(IResource)}, that prunes derived, hidden and
+   * dot-prefixed folders, but applied on the file and its ancestors.
+   */
+  private static boolean shouldAnalyze(IResource file) {
+    if (!SonarLintChangeListener.shouldAnalyze(file)) {
+      return false;
+    }
+    List<String> segments = Arrays.asList(file.getProjectRelativePath().segments());
+    return segments.stream().noneMatch(s -> s.startsWith("."));
+  }
+
+}
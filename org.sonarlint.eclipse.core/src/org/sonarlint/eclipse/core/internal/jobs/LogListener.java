@@ -27,4 +27,11 @@ public interface LogListener {
 
   void debug(String msg, boolean fromAnalyzer);
 
+  /**
+   * @return false if debug messages are ignored by this listener, so that they don't need to be formatted
+   */
+  default boolean isDebugEnabled() {
+    return true;
+  }
+
 }
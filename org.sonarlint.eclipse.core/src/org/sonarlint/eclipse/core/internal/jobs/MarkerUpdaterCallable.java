@@ -19,8 +19,10 @@
  */
 package org.sonarlint.eclipse.core.internal.jobs;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -37,6 +39,8 @@ import org.sonarlint.eclipse.core.internal.PreferencesUtils;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.markers.FlatTextRange;
+import org.sonarlint.eclipse.core.internal.markers.IndexedIssue;
+import org.sonarlint.eclipse.core.internal.markers.MarkerRuleTable;
 import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
 import org.sonarlint.eclipse.core.internal.markers.TextFileContext;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
@@ -68,7 +72,10 @@ public class MarkerUpdaterCallable implements Callable<IStatus> {
     try (TextFileContext context = new TextFileContext(resource)) {
       IDocument document = context.getDocument();
       if (document != null) {
-        createMarkers(document, resource, issues, triggerType);
+        List<IndexedIssue> createdIssues = createMarkers(document, resource, issues, triggerType);
+        if (triggerType != TriggerType.CHANGESET) {
+          SonarLintCorePlugin.getDefault().getIssueIndex().update(resource, createdIssues);
+        }
       }
     } catch (CoreException e) {
       SonarLintLogger.get().error(e.getMessage(), e);
@@ -77,22 +84,28 @@ public class MarkerUpdaterCallable implements Callable<IStatus> {
     return Status.OK_STATUS;
   }
 
-  private static void createMarkers(IDocument document, IResource file, Collection<Trackable> issues, TriggerType triggerType) throws CoreException {
+  private static List<IndexedIssue> createMarkers(IDocument document, IResource file, Collection<Trackable> issues, TriggerType triggerType)
+    throws CoreException {
+    List<IndexedIssue> createdIssues = new ArrayList<>(issues.size());
     for (Trackable issue : issues) {
       if (!issue.isResolved()) {
-        createMarker(document, file, issue, triggerType);
+        createdIssues.add(createMarker(document, file, issue, triggerType));
       }
     }
+    return createdIssues;
   }
 
-  private static void createMarker(IDocument document, IResource file, Trackable trackable, TriggerType triggerType) throws CoreException {
+  private static IndexedIssue createMarker(IDocument document, IResource file, Trackable trackable, TriggerType triggerType) throws CoreException {
     Map<String, Object> attributes = new HashMap<>();
 
-    attributes.put(MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, trackable.getRuleKey());
-    attributes.put(MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR, trackable.getRuleName());
+    MarkerRuleTable ruleTable = SonarLintCorePlugin.getDefault().getMarkerRuleTable();
+    String ruleKey = ruleTable.register(trackable.getRuleKey(), trackable.getRuleName());
+    String severity = ruleTable.internSeverity(trackable.getSeverity());
+    // Rule name is not stored on the marker, see MarkerUtils.getRuleName
+    attributes.put(MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, ruleKey);
     attributes.put(IMarker.PRIORITY, getPriority(trackable.getSeverity()));
     attributes.put(IMarker.SEVERITY, PreferencesUtils.getMarkerSeverity());
-    attributes.put(MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, trackable.getSeverity());
+    attributes.put(MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, severity);
 
     attributes.put(IMarker.MESSAGE, trackable.getMessage());
     attributes.put(MarkerUtils.SONAR_MARKER_SERVER_ISSUE_KEY_ATTR, trackable.getServerIssueKey());
@@ -108,11 +121,12 @@ public class MarkerUpdaterCallable implements Callable<IStatus> {
 
     Long creationDate = trackable.getCreationDate();
     if (creationDate != null) {
-      attributes.put(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, String.valueOf(creationDate.longValue()));
+      attributes.put(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, MarkerUtils.encodeCreationDate(creationDate));
     }
 
     IMarker marker = file.createMarker(triggerType == TriggerType.CHANGESET ? SonarLintCorePlugin.MARKER_CHANGESET_ID : SonarLintCorePlugin.MARKER_ID);
     marker.setAttributes(attributes);
+    return new IndexedIssue(file, ruleKey, severity, trackable.getLine(), trackable.getMessage());
   }
 
   /**
@@ -20,16 +20,24 @@
 package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProject;
 import org.sonarlint.eclipse.core.internal.server.IServer;
 
+/**
+ * Update the global storage of a server, then the storage of modules bound to projects. Each module is updated only once
+ * when several projects are bound to it. Modules are updated one at a time, since the engine serializes storage updates.
+ */
 public class ServerUpdateJob extends Job {
   private final IServer server;
 
@@ -40,31 +48,47 @@ public class ServerUpdateJob extends Job {
 
   @Override
   protected IStatus run(IProgressMonitor monitor) {
-    List<SonarLintProject> projectsToUpdate = server.getBoundProjects();
-    monitor.beginTask("Update server and all associated projects", projectsToUpdate.size() + 1);
+    Map<String, List<SonarLintProject>> projectsByModuleKey = server.getBoundProjects().stream()
+      // the project may have been unbound in the meantime
+      .filter(p -> p.getModuleKey() != null)
+      .collect(Collectors.groupingBy(SonarLintProject::getModuleKey, LinkedHashMap::new, Collectors.toList()));
+    monitor.beginTask("Update server and all associated projects", projectsByModuleKey.size() + 1);
     try {
       server.updateStorage(monitor);
     } catch (Exception e) {
       return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update data from server '" + server.getId() + "'", e);
     }
     monitor.worked(1);
+    long start = System.currentTimeMillis();
     List<IStatus> failures = new ArrayList<>();
-    for (SonarLintProject projectToUpdate : projectsToUpdate) {
+    int updated = 0;
+    for (Map.Entry<String, List<SonarLintProject>> entry : projectsByModuleKey.entrySet()) {
       if (monitor.isCanceled()) {
         return Status.CANCEL_STATUS;
       }
+      String moduleKey = entry.getKey();
+      monitor.subTask("Update module '" + moduleKey + "' (" + (++updated) + "/" + projectsByModuleKey.size() + ")");
       try {
-        server.updateProjectStorage(projectToUpdate.getModuleKey());
+        server.updateProjectStorage(moduleKey);
       } catch (Exception e) {
-        failures.add(new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update binding for project '" + projectToUpdate.getProject().getName() + "'", e));
+        failures.add(moduleFailure(moduleKey, entry.getValue(), e));
       }
       monitor.worked(1);
     }
     monitor.done();
+    SonarLintLogger.get().debug(() -> "Updated " + projectsByModuleKey.size() + " module(s) of server '" + server.getId() + "' in " + (System.currentTimeMillis() - start)
+      + "ms");
     if (!failures.isEmpty()) {
-      return new MultiStatus(SonarLintCorePlugin.PLUGIN_ID, IStatus.ERROR, failures.toArray(new IStatus[0]), "Failed to update binding for " + failures.size() + " project(s)",
+      return new MultiStatus(SonarLintCorePlugin.PLUGIN_ID, IStatus.ERROR, failures.toArray(new IStatus[0]), "Failed to update binding for " + failures.size() + " module(s)",
         null);
     }
     return Status.OK_STATUS;
   }
+
+  private static IStatus moduleFailure(String moduleKey, List<SonarLintProject> projects, Throwable cause) {
+    String projectNames = projects.stream()
+      .map(p -> "'" + p.getProject().getName() + "'")
+      .collect(Collectors.joining(", "));
+    return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update module '" + moduleKey + "' bound to project(s) " + projectNames, cause);
+  }
 }
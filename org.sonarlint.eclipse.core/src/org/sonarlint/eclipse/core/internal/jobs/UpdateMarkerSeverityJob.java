@@ -0,0 +1,71 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+
+/**
+ * Apply the marker severity preference to existing markers. Running as a single workspace operation means a single resource
+ * change notification, whatever the number of markers.
+ */
+public class UpdateMarkerSeverityJob extends WorkspaceJob {
+
+  private static final Object FAMILY = new Object();
+
+  public UpdateMarkerSeverityJob() {
+    super("Update SonarLint markers severity");
+    setPriority(Job.DECORATE);
+    setRule(ResourcesPlugin.getWorkspace().getRuleFactory().markerRule(ResourcesPlugin.getWorkspace().getRoot()));
+  }
+
+  /**
+   * Cancel a previous update, since only the last severity matters
+   */
+  public static void cancelAndSchedule() {
+    Job.getJobManager().cancel(FAMILY);
+    new UpdateMarkerSeverityJob().schedule();
+  }
+
+  @Override
+  public boolean belongsTo(Object family) {
+    return family == FAMILY;
+  }
+
+  @Override
+  public IStatus runInWorkspace(IProgressMonitor monitor) {
+    try {
+      MarkerUtils.updateAllSonarMarkerSeverity(monitor);
+    } catch (CoreException e) {
+      SonarLintLogger.get().error("Unable to update marker severity", e);
+      return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update marker severity", e);
+    }
+    return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+  }
+
+}
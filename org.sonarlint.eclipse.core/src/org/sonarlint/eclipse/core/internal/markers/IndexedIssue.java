@@ -0,0 +1,66 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Unresolved issue of a file, as displayed by SonarLint markers.
+ */
+public class IndexedIssue {
+
+  private final IResource resource;
+  private final String ruleKey;
+  private final String severity;
+  private final Integer line;
+  private final String message;
+
+  public IndexedIssue(IResource resource, String ruleKey, String severity, @Nullable Integer line, String message) {
+    this.resource = resource;
+    this.ruleKey = ruleKey;
+    this.severity = severity;
+    this.line = line;
+    this.message = message;
+  }
+
+  public IResource getResource() {
+    return resource;
+  }
+
+  public String getRuleKey() {
+    return ruleKey;
+  }
+
+  public String getSeverity() {
+    return severity;
+  }
+
+  @CheckForNull
+  public Integer getLine() {
+    return line;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import java.util.Locale;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable number of issues per severity.
+ */
+public class IssueCounts {
+
+  private static final String[] SEVERITIES = {"BLOCKER", "CRITICAL", "MAJOR", "MINOR", "INFO"};
+  private static final int UNKNOWN = SEVERITIES.length;
+
+  public static final IssueCounts EMPTY = new IssueCounts(new int[SEVERITIES.length + 1]);
+
+  private final int[] bySeverity;
+  private final int total;
+
+  private IssueCounts(int[] bySeverity) {
+    this.bySeverity = bySeverity;
+    int sum = 0;
+    for (int count : bySeverity) {
+      sum += count;
+    }
+    this.total = sum;
+  }
+
+  static IssueCounts of(Iterable<IndexedIssue> issues) {
+    int[] bySeverity = new int[SEVERITIES.length + 1];
+    for (IndexedIssue issue : issues) {
+      bySeverity[severityIndex(issue.getSeverity())]++;
+    }
+    return new IssueCounts(bySeverity);
+  }
+
+  IssueCounts plus(IssueCounts added, IssueCounts removed) {
+    int[] bySeverity = new int[this.bySeverity.length];
+    for (int i = 0; i < bySeverity.length; i++) {
+      bySeverity[i] = this.bySeverity[i] + added.bySeverity[i] - removed.bySeverity[i];
+    }
+    return new IssueCounts(bySeverity);
+  }
+
+  static int severityIndex(@Nullable String severity) {
+    if (severity == null) {
+      return UNKNOWN;
+    }
+    for (int i = 0; i < SEVERITIES.length; i++) {
+      if (SEVERITIES[i].equals(severity)) {
+        return i;
+      }
+    }
+    String upperCase = severity.toUpperCase(Locale.ENGLISH);
+    for (int i = 0; i < SEVERITIES.length; i++) {
+      if (SEVERITIES[i].equals(upperCase)) {
+        return i;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  /**
+   * @param severity one of BLOCKER, CRITICAL, MAJOR, MINOR, INFO
+   */
+  public int getCount(String severity) {
+    int index = severityIndex(severity);
+    return index != UNKNOWN ? bySeverity[index] : 0;
+  }
+
+  public boolean isEmpty() {
+    return total == 0;
+  }
+
+  @Override
+  public String toString() {
+    return total + " issue(s)";
+  }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+
+/**
+ * In memory index of the unresolved issues displayed by on-the-fly markers, fed by the marker updater, so that counts
+ * don't have to find markers in the workspace.
+ * Counts of files, folders, projects and of the workspace root are maintained on each update and read without locking.
+ */
+public class IssueIndex implements IResourceChangeListener {
+
+  // Guarded by this
+  private final Map<IResource, List<IndexedIssue>> issuesByFile = new HashMap<>();
+
+  private final Map<IResource, IssueCounts> countsByResource = new ConcurrentHashMap<>();
+  private final List<IssueIndexListener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Replace all issues of the file.
+   */
+  public void update(IResource file, Collection<IndexedIssue> issues) {
+    Set<IResource> changed;
+    synchronized (this) {
+      List<IndexedIssue> newIssues = issues.isEmpty() ? Collections.emptyList() : new ArrayList<>(issues);
+      List<IndexedIssue> oldIssues = newIssues.isEmpty() ? issuesByFile.remove(file) : issuesByFile.put(file, newIssues);
+      if (oldIssues == null && newIssues.isEmpty()) {
+        return;
+      }
+      changed = updateCounts(file, IssueCounts.of(newIssues), oldIssues != null ? IssueCounts.of(oldIssues) : IssueCounts.EMPTY);
+    }
+    fireChanged(changed);
+  }
+
+  /**
+   * Remove issues of the file, or of all files contained in the folder or project.
+   */
+  public void remove(IResource resource) {
+    Set<IResource> changed = new LinkedHashSet<>();
+    synchronized (this) {
+      if (countsByResource.get(resource) == null) {
+        return;
+      }
+      List<IResource> files = new ArrayList<>();
+      for (IResource file : issuesByFile.keySet()) {
+        if (resource.getFullPath().isPrefixOf(file.getFullPath())) {
+          files.add(file);
+        }
+      }
+      for (IResource file : files) {
+        List<IndexedIssue> oldIssues = issuesByFile.remove(file);
+        changed.addAll(updateCounts(file, IssueCounts.EMPTY, IssueCounts.of(oldIssues)));
+      }
+    }
+    fireChanged(changed);
+  }
+
+  /**
+   * Markers follow their resource when it is moved or renamed, so do indexed issues of the file, or of all files contained in
+   * the folder or project.
+   */
+  public void move(IResource resource, IPath destination) {
+    Set<IResource> changed = new LinkedHashSet<>();
+    synchronized (this) {
+      if (countsByResource.get(resource) == null) {
+        return;
+      }
+      IWorkspaceRoot root = resource.getWorkspace().getRoot();
+      int segmentCount = resource.getFullPath().segmentCount();
+      Map<IResource, List<IndexedIssue>> movedIssues = new LinkedHashMap<>();
+      for (IResource file : new ArrayList<>(issuesByFile.keySet())) {
+        if (!resource.getFullPath().isPrefixOf(file.getFullPath())) {
+          continue;
+        }
+        List<IndexedIssue> oldIssues = issuesByFile.remove(file);
+        changed.addAll(updateCounts(file, IssueCounts.EMPTY, IssueCounts.of(oldIssues)));
+        IFile movedFile = root.getFile(destination.append(file.getFullPath().removeFirstSegments(segmentCount)));
+        List<IndexedIssue> issues = new ArrayList<>(oldIssues.size());
+        for (IndexedIssue issue : oldIssues) {
+          issues.add(new IndexedIssue(movedFile, issue.getRuleKey(), issue.getSeverity(), issue.getLine(), issue.getMessage()));
+        }
+        movedIssues.put(movedFile, issues);
+      }
+      movedIssues.forEach((file, issues) -> {
+        issuesByFile.put(file, issues);
+        changed.addAll(updateCounts(file, IssueCounts.of(issues), IssueCounts.EMPTY));
+      });
+    }
+    fireChanged(changed);
+  }
+
+  /**
+   * Apply the difference to the file and all its parents, up to the workspace root.
+   */
+  private Set<IResource> updateCounts(IResource file, IssueCounts added, IssueCounts removed) {
+    Set<IResource> changed = new LinkedHashSet<>();
+    for (IResource resource = file; resource != null; resource = resource.getParent()) {
+      IssueCounts updated = countsByResource.getOrDefault(resource, IssueCounts.EMPTY).plus(added, removed);
+      if (updated.isEmpty()) {
+        countsByResource.remove(resource);
+      } else {
+        countsByResource.put(resource, updated);
+      }
+      changed.add(resource);
+    }
+    return changed;
+  }
+
+  /**
+   * Number of issues of the file, or of all files contained in the folder, project or workspace root.
+   */
+  public IssueCounts getCounts(IResource resource) {
+    return countsByResource.getOrDefault(resource, IssueCounts.EMPTY);
+  }
+
+  public void addListener(IssueIndexListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(IssueIndexListener listener) {
+    listeners.remove(listener);
+  }
+
+  private void fireChanged(Set<IResource> changed) {
+    if (changed.isEmpty()) {
+      return;
+    }
+    Collection<IResource> resources = Collections.unmodifiableSet(changed);
+    for (IssueIndexListener listener : listeners) {
+      try {
+        listener.issuesChanged(resources);
+      } catch (Exception e) {
+        SonarLintLogger.get().error("Error while notifying issue index listener", e);
+      }
+    }
+  }
+
+  /**
+   * Markers are not persistent and are dropped with their resource, so are indexed issues. Deletions are only handled from the
+   * delta, since a project is also "pre-deleted" when it is renamed or moved.
+   */
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    if (event.getType() == IResourceChangeEvent.PRE_CLOSE) {
+      if (event.getResource() != null) {
+        remove(event.getResource());
+      }
+      return;
+    }
+    IResourceDelta delta = event.getDelta();
+    if (delta == null || countsByResource.isEmpty()) {
+      return;
+    }
+    try {
+      delta.accept(d -> {
+        if (countsByResource.get(d.getResource()) == null) {
+          // Nothing indexed below
+          return false;
+        }
+        if (d.getKind() == IResourceDelta.REMOVED) {
+          if ((d.getFlags() & IResourceDelta.MOVED_TO) != 0) {
+            move(d.getResource(), d.getMovedToPath());
+          } else {
+            remove(d.getResource());
+          }
+          return false;
+        }
+        return true;
+      });
+    } catch (CoreException e) {
+      SonarLintLogger.get().error("Unable to update issue index", e);
+    }
+  }
+
+}
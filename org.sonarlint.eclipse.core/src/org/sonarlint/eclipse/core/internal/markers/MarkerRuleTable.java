@@ -0,0 +1,68 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Rule data shared by all SonarLint markers. Markers only keep the rule key, and the rule name is resolved from this table.
+ * Rule keys and severities stored on markers are canonical instances, so that thousands of markers don't hold their own copies.
+ * Markers are not persistent, so the table doesn't need to survive a restart.
+ */
+public class MarkerRuleTable {
+
+  private final ConcurrentMap<String, String> ruleKeys = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, String> ruleNamesByKey = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, String> severities = new ConcurrentHashMap<>();
+
+  /**
+   * Register the rule, or update its name if it has changed.
+   *
+   * @return the canonical instance of the rule key
+   */
+  @CheckForNull
+  public String register(@Nullable String ruleKey, @Nullable String ruleName) {
+    if (ruleKey == null) {
+      return null;
+    }
+    String canonicalKey = ruleKeys.computeIfAbsent(ruleKey, k -> k);
+    if (ruleName != null) {
+      ruleNamesByKey.put(canonicalKey, ruleName);
+    }
+    return canonicalKey;
+  }
+
+  @CheckForNull
+  public String getRuleName(@Nullable String ruleKey) {
+    return ruleKey != null ? ruleNamesByKey.get(ruleKey) : null;
+  }
+
+  /**
+   * @return the canonical instance of the severity
+   */
+  @CheckForNull
+  public String internSeverity(@Nullable String severity) {
+    return severity != null ? severities.computeIfAbsent(severity, s -> s) : null;
+  }
+
+}
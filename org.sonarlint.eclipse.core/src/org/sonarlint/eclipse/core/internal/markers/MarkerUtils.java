@@ -22,13 +22,16 @@ package org.sonarlint.eclipse.core.internal.markers;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.eclipse.core.resources.IMarker;
-import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.sonarlint.eclipse.core.SonarLintLogger;
@@ -38,17 +41,22 @@ import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 public final class MarkerUtils {
 
   public static final String SONAR_MARKER_RULE_KEY_ATTR = "rulekey";
-  public static final String SONAR_MARKER_RULE_NAME_ATTR = "rulename";
   public static final String SONAR_MARKER_ISSUE_SEVERITY_ATTR = "sonarseverity";
+  /**
+   * Creation date in seconds since epoch. Marker attributes can't be long, so the int value is read as unsigned.
+   */
   public static final String SONAR_MARKER_CREATION_DATE_ATTR = "creationdate";
 
   public static final String SONAR_MARKER_SERVER_ISSUE_KEY_ATTR = "serverissuekey";
 
+  private static final int SEVERITY_UPDATE_CHUNK_SIZE = 1000;
+
   private MarkerUtils() {
   }
 
   public static void deleteIssuesMarkers(IResource resource) {
     deleteMarkers(resource, SonarLintCorePlugin.MARKER_ID);
+    SonarLintCorePlugin.getDefault().getIssueIndex().remove(resource);
   }
 
   public static void deleteChangeSetIssuesMarkers(IResource resource) {
@@ -74,13 +82,61 @@ public final class MarkerUtils {
     }
   }
 
-  public static void updateAllSonarMarkerSeverity() throws CoreException {
-    for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
-      if (project.isAccessible()) {
-        for (IMarker marker : project.findMarkers(SonarLintCorePlugin.MARKER_ID, true, IResource.DEPTH_INFINITE)) {
-          marker.setAttribute(IMarker.SEVERITY, PreferencesUtils.getMarkerSeverity());
+  @CheckForNull
+  public static String getRuleName(IMarker marker) {
+    return SonarLintCorePlugin.getDefault().getMarkerRuleTable().getRuleName(marker.getAttribute(SONAR_MARKER_RULE_KEY_ATTR, null));
+  }
+
+  public static int encodeCreationDate(long creationDate) {
+    return (int) TimeUnit.MILLISECONDS.toSeconds(creationDate);
+  }
+
+  /**
+   * @param encodedCreationDate value of {@link #SONAR_MARKER_CREATION_DATE_ATTR}, 0 if missing
+   * @return creation date in milliseconds, or null if missing
+   */
+  @CheckForNull
+  public static Long decodeCreationDate(int encodedCreationDate) {
+    if (encodedCreationDate == 0) {
+      return null;
+    }
+    return TimeUnit.SECONDS.toMillis(Integer.toUnsignedLong(encodedCreationDate));
+  }
+
+  @CheckForNull
+  public static Long getCreationDate(IMarker marker) {
+    return decodeCreationDate(marker.getAttribute(SONAR_MARKER_CREATION_DATE_ATTR, 0));
+  }
+
+  /**
+   * Should be called inside a workspace operation, to get a single resource change notification.
+   * Markers already having the expected severity are not modified.
+   */
+  public static void updateAllSonarMarkerSeverity(IProgressMonitor monitor) throws CoreException {
+    int severity = PreferencesUtils.getMarkerSeverity();
+    IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+    // No need to search the workspace when the index knows there is no issue
+    IMarker[] issueMarkers = SonarLintCorePlugin.getDefault().getIssueIndex().getCounts(root).isEmpty() ? new IMarker[0]
+      : root.findMarkers(SonarLintCorePlugin.MARKER_ID, true, IResource.DEPTH_INFINITE);
+    IMarker[] changeSetMarkers = root.findMarkers(SonarLintCorePlugin.MARKER_CHANGESET_ID, true, IResource.DEPTH_INFINITE);
+    SubMonitor subMonitor = SubMonitor.convert(monitor, "Update SonarLint markers severity", issueMarkers.length + changeSetMarkers.length);
+    updateSeverity(issueMarkers, severity, subMonitor);
+    updateSeverity(changeSetMarkers, severity, subMonitor);
+  }
+
+  private static void updateSeverity(IMarker[] markers, int severity, SubMonitor subMonitor) throws CoreException {
+    for (int i = 0; i < markers.length; i += SEVERITY_UPDATE_CHUNK_SIZE) {
+      if (subMonitor.isCanceled()) {
+        return;
+      }
+      int end = Math.min(markers.length, i + SEVERITY_UPDATE_CHUNK_SIZE);
+      for (int j = i; j < end; j++) {
+        IMarker marker = markers[j];
+        if (marker.exists() && marker.getAttribute(IMarker.SEVERITY, -1) != severity) {
+          marker.setAttribute(IMarker.SEVERITY, severity);
         }
       }
+      subMonitor.worked(end - i);
     }
   }
 
@@ -43,12 +43,38 @@ public class SonarLintProject {
     this.project = project;
   }
 
+  private SonarLintProject(SonarLintProject other) {
+    this.project = other.project;
+    this.extraProperties = other.extraProperties != null ? new ArrayList<>(other.extraProperties) : null;
+    this.moduleKey = other.moduleKey;
+    this.serverId = other.serverId;
+    this.autoEnabled = other.autoEnabled;
+  }
+
+  /**
+   * @return the shared configuration of the project, that should not be modified
+   */
   public static SonarLintProject getInstance(IResource resource) {
+    return SonarLintCorePlugin.getDefault().getProjectManager().readSonarLintConfiguration(projectOf(resource));
+  }
+
+  /**
+   * @return a copy of the configuration of the project, to be modified then saved
+   */
+  public static SonarLintProject getWorkingCopy(IResource resource) {
+    return SonarLintCorePlugin.getDefault().getProjectManager().readSonarLintConfigurationCopy(projectOf(resource));
+  }
+
+  private static IProject projectOf(IResource resource) {
     IProject project = resource.getProject();
     if (project == null || !project.isAccessible()) {
       throw new IllegalStateException("Unable to find project for resource " + resource);
     }
-    return SonarLintCorePlugin.getDefault().getProjectManager().readSonarLintConfiguration(project);
+    return project;
+  }
+
+  SonarLintProject copy() {
+    return new SonarLintProject(this);
   }
 
   public void save() {
@@ -105,9 +131,11 @@ public class SonarLintProject {
   }
 
   public void unbind() {
-    setServerId(null);
-    setModuleKey(null);
-    save();
+    // The instance may be shared, only the saved configuration is modified
+    SonarLintProject unbound = copy();
+    unbound.setServerId(null);
+    unbound.setModuleKey(null);
+    unbound.save();
     MarkerUtils.deleteIssuesMarkers(project);
     MarkerUtils.deleteChangeSetIssuesMarkers(project);
     SonarLintCorePlugin.clearIssueTracker(project);
@@ -20,24 +20,197 @@
 package org.sonarlint.eclipse.core.internal.resources;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.osgi.service.prefs.BackingStoreException;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 
-public class SonarLintProjectManager {
+/**
+ * Read and save SonarLint configuration of projects. Configurations are cached, and the cache is invalidated when project preferences
+ * change, or when projects are closed, deleted or renamed. An index of bound projects per server is maintained.
+ */
+public class SonarLintProjectManager implements IResourceChangeListener {
 
   private static final String P_EXTRA_PROPS = "extraProperties";
   private static final String P_SERVER_ID = "serverId";
   private static final String P_MODULE_KEY = "moduleKey";
   private static final String P_AUTO_ENABLED_KEY = "autoEnabled";
 
+  private static final Path PREFS_FILE_PATH = new Path(".settings/" + SonarLintCorePlugin.PLUGIN_ID + ".prefs");
+
+  private final Map<IProject, SonarLintProject> configurationsByProject = new ConcurrentHashMap<>();
+  private final Map<IProject, PreferenceListenerRegistration> listenersByProject = new HashMap<>();
+  private final Map<String, Set<IProject>> boundProjectsByServerId = new HashMap<>();
+  // Server each project is indexed under, the cached configuration may have been modified since
+  private final Map<IProject, String> indexedServerIdByProject = new HashMap<>();
+  private boolean allProjectsLoaded;
+
+  private static class PreferenceListenerRegistration {
+    private final IEclipsePreferences node;
+    private final IPreferenceChangeListener listener;
+
+    PreferenceListenerRegistration(IEclipsePreferences node, IPreferenceChangeListener listener) {
+      this.node = node;
+      this.listener = listener;
+    }
+
+    void remove() {
+      try {
+        node.removePreferenceChangeListener(listener);
+      } catch (IllegalStateException e) {
+        // Node was already removed, with the project
+      }
+    }
+  }
+
+  /**
+   * The returned configuration is shared and should not be modified, use {@link #readSonarLintConfigurationCopy(IProject)} to edit it.
+   */
   public SonarLintProject readSonarLintConfiguration(IProject project) {
+    SonarLintProject cached = configurationsByProject.get(project);
+    if (cached != null) {
+      return cached;
+    }
+    return loadAndCache(project);
+  }
+
+  /**
+   * A private copy of the configuration, whose modifications are visible to others only once saved.
+   */
+  public SonarLintProject readSonarLintConfigurationCopy(IProject project) {
+    return readSonarLintConfiguration(project).copy();
+  }
+
+  private synchronized SonarLintProject loadAndCache(IProject project) {
+    SonarLintProject cached = configurationsByProject.get(project);
+    if (cached != null) {
+      return cached;
+    }
+    SonarLintProject configuration = load(project);
+    if (project.isAccessible()) {
+      listenForPreferenceChanges(project);
+      configurationsByProject.put(project, configuration);
+      String serverId = configuration.getServerId();
+      if (serverId != null) {
+        boundProjectsByServerId.computeIfAbsent(serverId, k -> new HashSet<>()).add(project);
+        indexedServerIdByProject.put(project, serverId);
+      }
+    }
+    return configuration;
+  }
+
+  private void listenForPreferenceChanges(IProject project) {
+    IEclipsePreferences projectNode = new ProjectScope(project).getNode(SonarLintCorePlugin.PLUGIN_ID);
+    if (projectNode != null && !listenersByProject.containsKey(project)) {
+      IPreferenceChangeListener listener = event -> invalidate(project);
+      projectNode.addPreferenceChangeListener(listener);
+      listenersByProject.put(project, new PreferenceListenerRegistration(projectNode, listener));
+    }
+  }
+
+  /**
+   * Forget the cached configuration of the project. It will be read again from preferences on next access.
+   */
+  public synchronized void invalidate(IProject project) {
+    configurationsByProject.remove(project);
+    String indexedServerId = indexedServerIdByProject.remove(project);
+    if (indexedServerId != null) {
+      Set<IProject> boundProjects = boundProjectsByServerId.get(indexedServerId);
+      if (boundProjects != null) {
+        boundProjects.remove(project);
+        if (boundProjects.isEmpty()) {
+          boundProjectsByServerId.remove(indexedServerId);
+        }
+      }
+    }
+    PreferenceListenerRegistration registration = listenersByProject.remove(project);
+    if (registration != null) {
+      registration.remove();
+    }
+    allProjectsLoaded = false;
+  }
+
+  /**
+   * @return accessible projects bound to the given server, sorted by name
+   */
+  public List<SonarLintProject> getBoundProjects(String serverId) {
+    List<IProject> boundProjects;
+    synchronized (this) {
+      if (!allProjectsLoaded) {
+        for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+          if (project.isAccessible()) {
+            loadAndCache(project);
+          }
+        }
+        allProjectsLoaded = true;
+      }
+      boundProjects = new ArrayList<>(boundProjectsByServerId.getOrDefault(serverId, Collections.emptySet()));
+    }
+    boundProjects.sort(Comparator.comparing(IProject::getName));
+    List<SonarLintProject> result = new ArrayList<>(boundProjects.size());
+    for (IProject project : boundProjects) {
+      if (project.isAccessible()) {
+        SonarLintProject configuration = readSonarLintConfiguration(project);
+        // The binding may have changed since the index was read
+        if (serverId.equals(configuration.getServerId())) {
+          result.add(configuration);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    switch (event.getType()) {
+      case IResourceChangeEvent.PRE_CLOSE:
+      case IResourceChangeEvent.PRE_DELETE:
+        if (event.getResource() instanceof IProject) {
+          invalidate((IProject) event.getResource());
+        }
+        break;
+      case IResourceChangeEvent.POST_CHANGE:
+        for (IResourceDelta projectDelta : event.getDelta().getAffectedChildren()) {
+          if (isProjectConfigurationChanged(projectDelta)) {
+            invalidate((IProject) projectDelta.getResource());
+          }
+        }
+        break;
+      default:
+        // Nothing to do
+    }
+  }
+
+  private static boolean isProjectConfigurationChanged(IResourceDelta projectDelta) {
+    if (projectDelta.getResource().getType() != IResource.PROJECT) {
+      return false;
+    }
+    return projectDelta.getKind() != IResourceDelta.CHANGED
+      || (projectDelta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO)) != 0
+      // Preferences file modified outside of Eclipse preferences API, for example by a VCS update
+      || projectDelta.findMember(PREFS_FILE_PATH) != null;
+  }
+
+  private static SonarLintProject load(IProject project) {
     IScopeContext projectScope = new ProjectScope(project);
     IEclipsePreferences projectNode = projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID);
     if (projectNode == null) {
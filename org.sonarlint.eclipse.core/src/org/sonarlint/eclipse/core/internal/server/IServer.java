@@ -86,12 +86,19 @@ public interface IServer {
    */
   void removeServerListener(IServerListener listener);
 
+  /**
+   * Index of the modules available in the storage. The instance is shared until next storage update, so it should not be modified.
+   */
   TextSearchIndex<RemoteModule> getModuleIndex();
 
   AnalysisResults runAnalysis(ConnectedAnalysisConfiguration config, IssueListener issueListener);
 
   String getHtmlRuleDescription(String ruleKey);
 
+  /**
+   * Update the storage of a module. The engine serializes storage updates, and notifies a state change (updating, then updated)
+   * on each call.
+   */
   void updateProjectStorage(String moduleKey);
 
   boolean isStorageUpdated();
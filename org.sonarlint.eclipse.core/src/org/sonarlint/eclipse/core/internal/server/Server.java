@@ -26,14 +26,21 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.eclipse.core.net.proxy.IProxyData;
 import org.eclipse.core.net.proxy.IProxyService;
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -71,13 +78,42 @@ import org.sonarsource.sonarlint.core.client.api.util.TextSearchIndex;
 public class Server implements IServer, StateListener {
 
   private static final String NEED_UPDATE = "Need data update";
+  /**
+   * Checks of module updates only read the engine storage, so unlike updates they can run concurrently
+   */
+  private static final int MAX_CONCURRENT_MODULE_CHECKS = 4;
+  // Delay between checks of cancellation while waiting for concurrent checks
+  private static final long CANCEL_POLL_MS = 200;
   private final String id;
   private String host;
   private boolean hasAuth;
   private final ConnectedSonarLintEngine client;
-  private final List<IServerListener> listeners = new ArrayList<>();
-  private GlobalStorageStatus updateStatus;
-  private boolean hasUpdates;
+  private final List<IServerListener> listeners = new CopyOnWriteArrayList<>();
+  /**
+   * Serialize storage updates (and deletion) without blocking readers, that are served from {@link #snapshot}
+   */
+  private final Object updateLock = new Object();
+  private volatile StorageSnapshot snapshot;
+  private volatile boolean hasUpdates;
+
+  /**
+   * Immutable view of the storage, replaced atomically at the end of each global storage update.
+   */
+  private final class StorageSnapshot {
+    private final GlobalStorageStatus updateStatus;
+    private TextSearchIndex<RemoteModule> moduleIndex;
+
+    StorageSnapshot(GlobalStorageStatus updateStatus) {
+      this.updateStatus = updateStatus;
+    }
+
+    synchronized TextSearchIndex<RemoteModule> getModuleIndex() {
+      if (moduleIndex == null) {
+        moduleIndex = buildModuleIndex();
+      }
+      return moduleIndex;
+    }
+  }
 
   Server(String id, String host, boolean hasAuth) {
     this.id = id;
@@ -91,7 +127,37 @@ public class Server implements IServer, StateListener {
       .build();
     this.client = new ConnectedSonarLintEngineImpl(globalConfig);
     this.client.addStateListener(this);
-    this.updateStatus = client.getGlobalStorageStatus();
+    publishSnapshot(client.getGlobalStorageStatus());
+  }
+
+  private void publishSnapshot(GlobalStorageStatus updateStatus) {
+    StorageSnapshot newSnapshot = new StorageSnapshot(updateStatus);
+    this.snapshot = newSnapshot;
+    if (isStorageUpdated()) {
+      scheduleModuleIndexing(newSnapshot);
+    }
+  }
+
+  /**
+   * Build the module index in background so that it is ready when the user opens the binding wizard
+   */
+  private void scheduleModuleIndexing(StorageSnapshot toIndex) {
+    Job job = new Job("Index modules of SonarQube server '" + id + "'") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        if (toIndex == snapshot) {
+          try {
+            toIndex.getModuleIndex();
+          } catch (Exception e) {
+            SonarLintLogger.get().debug("Unable to index modules of server '" + id + "'", e);
+          }
+        }
+        return Status.OK_STATUS;
+      }
+    };
+    job.setSystem(true);
+    job.setPriority(Job.DECORATE);
+    job.schedule();
   }
 
   @Override
@@ -130,29 +196,22 @@ public class Server implements IServer, StateListener {
   public void checkForUpdates(IProgressMonitor progress) {
     this.hasUpdates = false;
     try {
-      SubMonitor subMonitor = SubMonitor.convert(progress, getBoundProjects().size() + 1);
+      Map<String, List<SonarLintProject>> projectsByModuleKey = getBoundProjects().stream()
+        .filter(p -> p.getModuleKey() != null)
+        .collect(Collectors.groupingBy(SonarLintProject::getModuleKey, LinkedHashMap::new, Collectors.toList()));
+      SubMonitor subMonitor = SubMonitor.convert(progress, projectsByModuleKey.size() + 1);
       SubMonitor globalMonitor = subMonitor.newChild(1);
       SonarLintLogger.get().info("Check for updates from server '" + getId() + "'");
-      StorageUpdateCheckResult checkForUpdateResult = client.checkIfGlobalStorageNeedUpdate(getConfig(),
+      // Reading credentials from the secure storage is slow, and the configuration is the same for all checks
+      ServerConfiguration config = getConfig();
+      StorageUpdateCheckResult checkForUpdateResult = client.checkIfGlobalStorageNeedUpdate(config,
         new WrappedProgressMonitor(globalMonitor, "Check for configuration updates on server '" + getId() + "'"));
       if (checkForUpdateResult.needUpdate()) {
         this.hasUpdates = true;
         checkForUpdateResult.changelog().forEach(line -> SonarLintLogger.get().info("  - " + line));
       }
-
-      for (SonarLintProject boundProject : getBoundProjects()) {
-        SubMonitor projectMonitor = subMonitor.newChild(1);
-        if (progress.isCanceled()) {
-          return;
-        }
-        SonarLintLogger.get().info("Check for updates from server '" + getId() + "' for project '" + boundProject.getProject().getName() + "'");
-        StorageUpdateCheckResult moduleUpdateCheckResult = client.checkIfModuleStorageNeedUpdate(getConfig(), boundProject.getModuleKey(),
-          new WrappedProgressMonitor(projectMonitor, "Checking for configuration update for project '" + boundProject.getProject().getName() + "'"));
-        if (moduleUpdateCheckResult.needUpdate()) {
-          this.hasUpdates = true;
-          SonarLintLogger.get().info("On project '" + boundProject.getProject().getName() + "':");
-          moduleUpdateCheckResult.changelog().forEach(line -> SonarLintLogger.get().info("  - " + line));
-        }
+      if (!projectsByModuleKey.isEmpty()) {
+        checkForModuleUpdates(config, projectsByModuleKey, subMonitor);
       }
     } catch (DownloadException e) {
       // If server is not reachable, just ignore
@@ -162,6 +221,72 @@ public class Server implements IServer, StateListener {
     }
   }
 
+  /**
+   * Check modules concurrently, up to {@link #MAX_CONCURRENT_MODULE_CHECKS}. Results are logged as they arrive, by the calling thread.
+   */
+  private void checkForModuleUpdates(ServerConfiguration config, Map<String, List<SonarLintProject>> projectsByModuleKey, SubMonitor subMonitor) {
+    int threads = Math.min(projectsByModuleKey.size(), MAX_CONCURRENT_MODULE_CHECKS);
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "SonarLint update check for server '" + id + "'");
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      CompletionService<StorageUpdateCheckResult> completion = new ExecutorCompletionService<>(executor);
+      Map<Future<StorageUpdateCheckResult>, String> moduleKeysByFuture = new HashMap<>();
+      ProgressMonitor checkMonitor = new CancelableProgressMonitor(subMonitor);
+      for (String moduleKey : projectsByModuleKey.keySet()) {
+        moduleKeysByFuture.put(completion.submit(() -> client.checkIfModuleStorageNeedUpdate(config, moduleKey, checkMonitor)), moduleKey);
+      }
+      int remaining = moduleKeysByFuture.size();
+      while (remaining > 0) {
+        if (subMonitor.isCanceled()) {
+          return;
+        }
+        Future<StorageUpdateCheckResult> done = completion.poll(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+        if (done == null) {
+          continue;
+        }
+        remaining--;
+        String moduleKey = moduleKeysByFuture.get(done);
+        String projectNames = projectsByModuleKey.get(moduleKey).stream()
+          .map(p -> "'" + p.getProject().getName() + "'")
+          .collect(Collectors.joining(", "));
+        try {
+          StorageUpdateCheckResult moduleUpdateCheckResult = done.get();
+          if (moduleUpdateCheckResult.needUpdate()) {
+            this.hasUpdates = true;
+            SonarLintLogger.get().info("On project(s) " + projectNames + ":");
+            moduleUpdateCheckResult.changelog().forEach(line -> SonarLintLogger.get().info("  - " + line));
+          }
+        } catch (ExecutionException e) {
+          SonarLintLogger.get().debug("Unable to check for update of module '" + moduleKey + "' bound to project(s) " + projectNames + " on server '" + id + "'", e.getCause());
+        }
+        subMonitor.worked(1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Only forwards cancellation, progress of concurrent checks is reported by the calling thread.
+   */
+  private static class CancelableProgressMonitor extends ProgressMonitor {
+    private final IProgressMonitor wrapped;
+
+    CancelableProgressMonitor(IProgressMonitor wrapped) {
+      this.wrapped = wrapped;
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return wrapped.isCanceled();
+    }
+  }
+
   @Override
   public boolean hasUpdates() {
     return hasUpdates;
@@ -201,7 +326,7 @@ public class Server implements IServer, StateListener {
     if (!isStorageUpdated()) {
       return NEED_UPDATE;
     }
-    return updateStatus.getServerVersion();
+    return snapshot.updateStatus.getServerVersion();
   }
 
   @Override
@@ -209,7 +334,7 @@ public class Server implements IServer, StateListener {
     if (!isStorageUpdated()) {
       return NEED_UPDATE;
     }
-    return new SimpleDateFormat().format(updateStatus.getLastUpdateDate());
+    return new SimpleDateFormat().format(snapshot.updateStatus.getLastUpdateDate());
   }
 
   @Override
@@ -243,12 +368,15 @@ public class Server implements IServer, StateListener {
   }
 
   @Override
-  public synchronized void delete() {
-    client.stop(true);
-    for (SonarLintProject sonarLintProject : getBoundProjects()) {
-      sonarLintProject.unbind();
+  public void delete() {
+    synchronized (updateLock) {
+      client.stop(true);
+      for (SonarLintProject sonarLintProject : getBoundProjects()) {
+        sonarLintProject.unbind();
+      }
+      SonarLintCorePlugin.getDefault().getRuleDescriptionCache().invalidate(id);
+      ServersManager.getInstance().removeServer(this);
     }
-    ServersManager.getInstance().removeServer(this);
   }
 
   @Override
@@ -266,7 +394,7 @@ public class Server implements IServer, StateListener {
   }
 
   @Override
-  public synchronized String getHtmlRuleDescription(String ruleKey) {
+  public String getHtmlRuleDescription(String ruleKey) {
     RuleDetails ruleDetails = client.getRuleDetails(ruleKey);
     if (ruleDetails == null) {
       return "Not found";
@@ -284,28 +412,25 @@ public class Server implements IServer, StateListener {
   }
 
   @Override
-  public synchronized void updateStorage(IProgressMonitor monitor) {
-    updateStatus = client.update(getConfig(), new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "'"));
-    hasUpdates = false;
+  public void updateStorage(IProgressMonitor monitor) {
+    synchronized (updateLock) {
+      GlobalStorageStatus newStatus = client.update(getConfig(), new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "'"));
+      publishSnapshot(newStatus);
+      hasUpdates = false;
+      SonarLintCorePlugin.getDefault().getRuleDescriptionCache().invalidate(id);
+    }
   }
 
   @Override
   public List<SonarLintProject> getBoundProjects() {
-    List<SonarLintProject> result = new ArrayList<>();
-    for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
-      if (project.isAccessible()) {
-        SonarLintProject sonarProject = SonarLintProject.getInstance(project);
-        if (Objects.equals(sonarProject.getServerId(), id)) {
-          result.add(sonarProject);
-        }
-      }
-    }
-    return result;
+    return SonarLintCorePlugin.getDefault().getProjectManager().getBoundProjects(id);
   }
 
   @Override
-  public synchronized void updateProjectStorage(String moduleKey) {
-    client.updateModule(getConfig(), moduleKey);
+  public void updateProjectStorage(String moduleKey) {
+    synchronized (updateLock) {
+      client.updateModule(getConfig(), moduleKey);
+    }
   }
 
   @Override
@@ -371,14 +496,29 @@ public class Server implements IServer, StateListener {
 
   @Override
   public TextSearchIndex<RemoteModule> getModuleIndex() {
+    return snapshot.getModuleIndex();
+  }
+
+  private TextSearchIndex<RemoteModule> buildModuleIndex() {
+    long start = System.currentTimeMillis();
     Map<String, RemoteModule> allModulesByKey = client.allModulesByKey();
+    // Only a rough measure of the memory used by the index, other threads allocate too and a GC may happen meanwhile
+    long usedBefore = usedHeap();
     TextSearchIndex<RemoteModule> index = new TextSearchIndex<>();
     for (RemoteModule module : allModulesByKey.values()) {
       index.index(module, module.getKey() + " " + module.getName());
     }
+    long heapGrowth = Math.max(0, usedHeap() - usedBefore);
+    SonarLintLogger.get().debug("Indexed " + allModulesByKey.size() + " modules of server '" + id + "' in " + (System.currentTimeMillis() - start) + "ms, heap grew by about "
+      + heapGrowth / 1024 + " KB");
     return index;
   }
 
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
   @Override
   public void addServerListener(IServerListener listener) {
     listeners.add(listener);
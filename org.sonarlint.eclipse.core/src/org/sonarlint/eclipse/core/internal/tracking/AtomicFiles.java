@@ -0,0 +1,89 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+/**
+ * Writes files of the issue store so that a crash never leaves a partially written file: content goes to a temporary file
+ * in the same directory, which is then renamed to the target.
+ */
+class AtomicFiles {
+
+  static final String TMP_SUFFIX = ".tmp";
+
+  @FunctionalInterface
+  interface ContentWriter {
+    void write(OutputStream out) throws IOException;
+  }
+
+  private AtomicFiles() {
+    // utility class, forbidden constructor
+  }
+
+  static void write(Path target, ContentWriter writer) throws IOException {
+    Path parent = target.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path tmp = Files.createTempFile(parent, target.getFileName().toString(), TMP_SUFFIX);
+    try {
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        writer.write(out);
+      }
+      try {
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Delete temporary files left by writes that were interrupted, for example because the IDE was killed.
+   *
+   * @return number of deleted files
+   */
+  static int deleteLeftovers(Path dir) {
+    if (!dir.toFile().isDirectory()) {
+      return 0;
+    }
+    int[] deleted = new int[1];
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.filter(p -> p.getFileName().toString().endsWith(TMP_SUFFIX)).forEach(p -> {
+        try {
+          Files.deleteIfExists(p);
+          deleted[0]++;
+        } catch (IOException e) {
+          // will be retried on next start
+        }
+      });
+    } catch (IOException e) {
+      // best effort
+    }
+    return deleted[0];
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of files and entries of the issue store.
+ * <p>
+ * Compressed content starts with a header: a zero byte, that can't start a protobuf message (field number 0 is invalid),
+ * followed by the id of the compression. Content without header is raw protobuf, as written by previous versions or
+ * when compression is not worth it, so that reads don't depend on the compression chosen for writes.
+ */
+public enum Compression {
+  NONE(0),
+  /**
+   * Fastest level of Deflate: on stored issues, it saves almost as much as the default level, for a fraction of the time.
+   */
+  DEFLATE(1);
+
+  private static final int HEADER_MARKER = 0;
+  // Small entries don't compress well, and most files have only a few issues
+  static final int MIN_SIZE_TO_COMPRESS = 256;
+
+  private final int id;
+
+  Compression(int id) {
+    this.id = id;
+  }
+
+  /**
+   * @return the content, compressed with a header if it saves space
+   */
+  public byte[] compress(byte[] raw) {
+    if (this == NONE || raw.length < MIN_SIZE_TO_COMPRESS) {
+      return raw;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+    out.write(HEADER_MARKER);
+    out.write(id);
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater)) {
+      deflated.write(raw);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to compress", e);
+    } finally {
+      deflater.end();
+    }
+    return out.size() < raw.length ? out.toByteArray() : raw;
+  }
+
+  /**
+   * @return a stream of the uncompressed content, whatever the compression it was written with
+   */
+  public static InputStream decompress(InputStream in) throws IOException {
+    PushbackInputStream pushback = new PushbackInputStream(in, 1);
+    int first = pushback.read();
+    if (first != HEADER_MARKER) {
+      if (first != -1) {
+        pushback.unread(first);
+      }
+      return pushback;
+    }
+    int compressionId = pushback.read();
+    if (compressionId == DEFLATE.id) {
+      return new InflaterInputStream(pushback);
+    }
+    if (compressionId == NONE.id) {
+      return pushback;
+    }
+    throw new IOException("Unknown compression: " + compressionId);
+  }
+}
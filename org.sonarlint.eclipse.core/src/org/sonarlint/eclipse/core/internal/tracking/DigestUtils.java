@@ -21,6 +21,7 @@ package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -28,14 +29,60 @@ public class DigestUtils {
 
   private static final char[] DIGITS = "0123456789abcdef".toCharArray();
 
-  private static final MessageDigest MD5_DIGEST = DigestUtils.getMd5Digest();
+  // MessageDigest instances are stateful, share one per thread since issues of several files can be tracked in parallel
+  private static final ThreadLocal<MessageDigest> MD5_DIGEST = ThreadLocal.withInitial(DigestUtils::getMd5Digest);
+
+  private static final LongAdder DIGEST_COUNT = new LongAdder();
+  private static final ThreadLocal<long[]> THREAD_DIGEST_COUNT = ThreadLocal.withInitial(() -> new long[1]);
 
   private DigestUtils() {
     // utility class, forbidden constructor
   }
 
   public static String digest(String content) {
-    return encodeHexString(MD5_DIGEST.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+    DIGEST_COUNT.increment();
+    THREAD_DIGEST_COUNT.get()[0]++;
+    return encodeHexString(MD5_DIGEST.get().digest(removeWhitespaces(content).getBytes(UTF_8)));
+  }
+
+  /**
+   * Total number of digests computed since startup.
+   */
+  public static long getDigestCount() {
+    return DIGEST_COUNT.sum();
+  }
+
+  /**
+   * Number of digests computed by the current thread since startup. Callers can compare two values to count the digests
+   * computed by a given operation, without being disturbed by other threads.
+   */
+  public static long getThreadDigestCount() {
+    return THREAD_DIGEST_COUNT.get()[0];
+  }
+
+  /**
+   * Same result as <code>content.replaceAll("[\\s]", "")</code>, without the cost of the regular expression.
+   */
+  static String removeWhitespaces(String content) {
+    int length = content.length();
+    StringBuilder sb = null;
+    for (int i = 0; i < length; i++) {
+      char c = content.charAt(i);
+      if (isWhitespace(c)) {
+        if (sb == null) {
+          sb = new StringBuilder(length);
+          sb.append(content, 0, i);
+        }
+      } else if (sb != null) {
+        sb.append(c);
+      }
+    }
+    return sb != null ? sb.toString() : content;
+  }
+
+  private static boolean isWhitespace(char c) {
+    // Characters of the \s class of java.util.regex.Pattern
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
   }
 
   private static MessageDigest getMd5Digest() {
@@ -21,37 +21,34 @@ package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
-import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
 
 /**
  * An ObjectStore without internal cache that derives the filesystem path to storage using a provided PathMapper.
+ * Issues are now stored in a {@link SegmentObjectStore}, this one is only used to migrate stores of previous versions.
  *
  * @param <K> type of the key to store by and used when reading back; must be hashable
  * @param <V> type of the value to store
  */
-class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
-  private static final Logger LOGGER = new Logger();
-
+class IndexedObjectStore<K, V> implements LocalObjectStore<K, V> {
   private final StoreIndex<K> index;
   private final PathMapper<K> pathMapper;
   private final Reader<V> reader;
   private final Writer<V> writer;
-  private final StoreKeyValidator<K> validator;
 
-  IndexedObjectStore(StoreIndex<K> index, PathMapper<K> pathMapper, Reader<V> reader, Writer<V> writer, StoreKeyValidator<K> validator) {
+  IndexedObjectStore(StoreIndex<K> index, PathMapper<K> pathMapper, Reader<V> reader, Writer<V> writer) {
     this.index = index;
     this.pathMapper = pathMapper;
     this.reader = reader;
     this.writer = writer;
-    this.validator = validator;
   }
 
   @Override
@@ -65,29 +62,26 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
     }
   }
 
+  @Override
   public boolean contains(K key) {
     Path path = pathMapper.apply(key);
     return path.toFile().exists();
   }
 
+  @Override
+  public Collection<K> keys() {
+    return index.keys();
+  }
+
   /**
-   * Deletes all entries in the index that are no longer valid.
+   * Same as deleting each entry, but the index is only updated once.
    */
-  public void deleteInvalid() {
-    int counter = 0;
-    Collection<K> keys = index.keys();
-
-    for (K k : keys) {
-      if (!validator.apply(k)) {
-        try {
-          counter++;
-          delete(k);
-        } catch (IOException e) {
-          LOGGER.error("Failed to delete file in the store", e);
-        }
-      }
+  @Override
+  public void deleteAll(Collection<K> keys) throws IOException {
+    for (K key : keys) {
+      Files.deleteIfExists(pathMapper.apply(key));
     }
-    LOGGER.debug(String.format("%d entries removed from the store", counter));
+    index.deleteAll(keys);
   }
 
   @Override
@@ -101,12 +95,31 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
   public void write(K key, V value) throws IOException {
     Path path = pathMapper.apply(key);
     index.save(key, path);
-    Path parent = path.getParent();
-    if (!parent.toFile().exists()) {
-      Files.createDirectories(parent);
+    AtomicFiles.write(path, out -> writer.accept(out, value));
+  }
+
+  /**
+   * Same as writing each entry, but the index is only updated once.
+   */
+  @Override
+  public void writeAll(Map<K, V> values) throws IOException {
+    Map<K, Path> paths = new LinkedHashMap<>();
+    for (Map.Entry<K, V> entry : values.entrySet()) {
+      paths.put(entry.getKey(), pathMapper.apply(entry.getKey()));
     }
-    try (OutputStream out = Files.newOutputStream(path)) {
-      writer.accept(out, value);
+    index.saveAll(paths);
+    for (Map.Entry<K, V> entry : values.entrySet()) {
+      AtomicFiles.write(paths.get(entry.getKey()), out -> writer.accept(out, entry.getValue()));
     }
   }
+
+  @Override
+  public void clear() throws IOException {
+    deleteAll(index.keys());
+  }
+
+  @Override
+  public void close() {
+    // nothing is kept open
+  }
 }
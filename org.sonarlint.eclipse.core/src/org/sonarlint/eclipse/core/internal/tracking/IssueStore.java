@@ -20,12 +20,28 @@
 package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
@@ -33,86 +49,413 @@ import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class IssueStore {
-  private Path basePath;
-  private IndexedObjectStore<String, Sonarlint.Issues> store;
+  private static final Logger LOGGER = new Logger();
+
+  // Lists the files being flushed, only exists while a flush is in progress
+  public static final String FLUSH_JOURNAL_FILENAME = "flush.journal";
+
+  /**
+   * Version of the format of issues. Version 1 adds text ranges and their hash, and stores rule keys and messages in a dictionary.
+   * Issues in previous versions are still readable, and upgraded when the file is saved again.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * On files with thousands of issues, Deflate makes stored issues 1.5 to 2 times smaller (line hashes hardly compress),
+   * for a few milliseconds per file. Files with a few issues are not compressed.
+   */
+  public static final Compression DEFAULT_COMPRESSION = Compression.DEFLATE;
+
+  // Number of files migrated at once from the legacy layout
+  private static final int MIGRATION_BATCH_SIZE = 500;
+
+  // Removal of stale entries is delayed so that it doesn't compete with the first analyses, and done by small batches
+  static final long STALE_ENTRIES_REMOVAL_DELAY_MS = 30_000;
+  static final int STALE_ENTRIES_BATCH_SIZE = 200;
+  static final long STALE_ENTRIES_BATCH_PAUSE_MS = 20;
+
+  private final Path basePath;
+  private final SegmentObjectStore<Sonarlint.Issues> store;
+  private final StoreKeyValidator<String> validator;
+  private final Job staleEntriesRemoval;
+  // Store of a previous version, still read until its issues are migrated to the segment
+  @Nullable
+  private volatile LocalObjectStore<String, Sonarlint.Issues> legacy;
+  @Nullable
+  private final Job migration;
+  // Prevents the migration from overwriting issues saved in the meantime
+  private final Object migrationLock = new Object();
+  private volatile long lastStaleEntriesRemovalTime = -1;
+  private volatile boolean closed;
 
   public IssueStore(Path storeBasePath, Path projectBasePath) {
+    this(storeBasePath, projectBasePath, DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * @param compression used to write issues, issues written with any compression can be read
+   */
+  public IssueStore(Path storeBasePath, Path projectBasePath, Compression compression) {
     this.basePath = storeBasePath;
     FileUtils.forceMkDirs(storeBasePath);
-    StoreIndex<String> index = new StringStoreIndex(storeBasePath);
-    PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
-    StoreKeyValidator<String> validator = new PathStoreKeyValidator(projectBasePath);
+    this.validator = new PathStoreKeyValidator(projectBasePath);
     Reader<Sonarlint.Issues> reader = is -> {
-      try {
-        return Sonarlint.Issues.parseFrom(is);
+      try (InputStream decompressed = Compression.decompress(is)) {
+        return Sonarlint.Issues.parseFrom(decompressed);
       } catch (IOException e) {
         throw new IllegalStateException("Failed to read issues", e);
       }
     };
     Writer<Sonarlint.Issues> writer = (os, issues) -> {
       try {
-        issues.writeTo(os);
+        os.write(compression.compress(issues.toByteArray()));
       } catch (IOException e) {
         throw new IllegalStateException("Failed to save issues", e);
       }
     };
-    store = new IndexedObjectStore<>(index, mapper, reader, writer, validator);
-    store.deleteInvalid();
+    store = new SegmentObjectStore<>(storeBasePath, reader, writer, IssueStore::scheduleCompaction);
+    reportInterruptedFlush();
+    staleEntriesRemoval = newStaleEntriesRemovalJob();
+    if (basePath.resolve(StringStoreIndex.INDEX_FILENAME).toFile().exists()) {
+      PathMapper<String> mapper = new HashingPathMapper(basePath, 2);
+      legacy = new IndexedObjectStore<>(new StringStoreIndex(basePath), mapper, reader, writer);
+      // Stale entries are removed once migrated
+      migration = newMigrationJob();
+      migration.schedule();
+    } else {
+      migration = null;
+      staleEntriesRemoval.schedule(STALE_ENTRIES_REMOVAL_DELAY_MS);
+    }
+  }
+
+  private Job newMigrationJob() {
+    Job job = new Job("Migrate SonarLint issues") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        try {
+          migrateLegacyLayout(monitor);
+        } finally {
+          if (closed) {
+            store.close();
+          } else {
+            staleEntriesRemoval.schedule(STALE_ENTRIES_REMOVAL_DELAY_MS);
+          }
+        }
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+      }
+    };
+    job.setSystem(true);
+    job.setPriority(Job.DECORATE);
+    return job;
+  }
+
+  private Job newStaleEntriesRemovalJob() {
+    Job job = new Job("Remove stale SonarLint issues") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        try {
+          removeStaleEntries(monitor);
+        } catch (IOException e) {
+          return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to remove stale issues in " + basePath, e);
+        } finally {
+          if (closed) {
+            // Don't keep the store open for a tracker that was released in the meantime
+            store.close();
+          }
+        }
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+      }
+    };
+    job.setSystem(true);
+    job.setPriority(Job.DECORATE);
+    return job;
+  }
+
+  private static void scheduleCompaction(Runnable compaction) {
+    Job job = new Job("Compact SonarLint issue store") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        compaction.run();
+        return Status.OK_STATUS;
+      }
+    };
+    job.setSystem(true);
+    job.setPriority(Job.DECORATE);
+    job.schedule();
+  }
+
+  /**
+   * Issues used to be stored in one file per source file, with an index file. Move them to the segment and delete the old files.
+   * Issues that are saved in the meantime are not overwritten. Until the migration is complete, issues are read from the old files.
+   */
+  private void migrateLegacyLayout(IProgressMonitor monitor) {
+    LocalObjectStore<String, Sonarlint.Issues> legacyStore = legacy;
+    if (legacyStore == null) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    int migrated = 0;
+    try {
+      Map<String, Sonarlint.Issues> batch = new LinkedHashMap<>();
+      for (String key : legacyStore.keys()) {
+        if (monitor.isCanceled()) {
+          // Legacy files are kept, migration will go on at next start
+          return;
+        }
+        try {
+          legacyStore.read(key).ifPresent(issues -> batch.put(key, issues));
+        } catch (IOException | IllegalStateException e) {
+          LOGGER.debug("Unable to migrate issues of " + key, e);
+        }
+        if (batch.size() >= MIGRATION_BATCH_SIZE) {
+          migrated += migrate(batch);
+        }
+      }
+      migrated += migrate(batch);
+    } catch (IOException | IllegalStateException e) {
+      // Legacy files are kept, migration will be attempted again on next start
+      LOGGER.error("Failed to migrate issues of " + basePath, e);
+      return;
+    }
+    legacy = null;
+    deleteLegacyLayout();
+    int count = migrated;
+    LOGGER.debug(() -> String.format("Migrated issues of %d file(s) in %s to a segment in %d ms", count, basePath, System.currentTimeMillis() - start));
+  }
+
+  private int migrate(Map<String, Sonarlint.Issues> batch) throws IOException {
+    synchronized (migrationLock) {
+      batch.keySet().removeIf(store::contains);
+      store.writeAll(batch);
+    }
+    int count = batch.size();
+    batch.clear();
+    return count;
+  }
+
+  /**
+   * Wait for the migration to stop, it is resumed on next start.
+   */
+  private void stopMigration() {
+    if (migration == null) {
+      return;
+    }
+    migration.cancel();
+    try {
+      migration.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deleteLegacyLayout() {
+    try (Stream<Path> children = Files.list(basePath)) {
+      children.filter(p -> p.toFile().isDirectory()).forEach(FileUtils::deleteDirectory);
+      Files.deleteIfExists(basePath.resolve(StringStoreIndex.INDEX_FILENAME));
+    } catch (IOException e) {
+      LOGGER.error("Failed to delete legacy issue files in " + basePath, e);
+    }
+  }
+
+  /**
+   * Report what was not persisted by the previous session, because it was killed or reached the deadline during the last flush.
+   */
+  private void reportInterruptedFlush() {
+    int leftovers = AtomicFiles.deleteLeftovers(basePath);
+    Path journal = basePath.resolve(FLUSH_JOURNAL_FILENAME);
+    if (!journal.toFile().exists()) {
+      if (leftovers > 0) {
+        LOGGER.info(String.format("%d incomplete write(s) of issues found in %s and discarded", leftovers, basePath));
+      }
+      return;
+    }
+    try {
+      List<String> files = Files.readAllLines(journal, UTF_8);
+      LOGGER.info(String.format("Last flush of issues in %s was interrupted, issues of up to %d file(s) may be outdated (%d incomplete write(s) discarded)",
+        basePath, files.size(), leftovers));
+      LOGGER.debug(() -> "Files whose issues may be outdated: " + String.join(", ", files));
+      Files.deleteIfExists(journal);
+    } catch (IOException e) {
+      LOGGER.error("Failed to read journal of issues flush in " + basePath, e);
+    }
   }
 
   public boolean contains(String key) {
-    return store.contains(key);
+    LocalObjectStore<String, Sonarlint.Issues> legacyStore = legacy;
+    return store.contains(key) || (legacyStore != null && legacyStore.contains(key));
   }
 
   public void save(String key, Collection<Trackable> issues) throws IOException {
-    store.write(key, transform(issues));
+    Sonarlint.Issues proto = toProto(issues);
+    synchronized (migrationLock) {
+      store.write(key, proto);
+    }
+  }
+
+  /**
+   * Save issues of several files at once. The list of files is journaled until all of them are written, so that an interrupted
+   * flush can be reported on next start.
+   */
+  public void saveAll(Map<String, Collection<Trackable>> issuesPerFile) throws IOException {
+    if (issuesPerFile.isEmpty()) {
+      return;
+    }
+    writeFlushJournal(issuesPerFile.keySet());
+    Map<String, Sonarlint.Issues> transformed = new LinkedHashMap<>();
+    issuesPerFile.forEach((key, issues) -> transformed.put(key, toProto(issues)));
+    synchronized (migrationLock) {
+      store.writeAll(transformed);
+    }
+    Files.deleteIfExists(basePath.resolve(FLUSH_JOURNAL_FILENAME));
+  }
+
+  /**
+   * Journal files whose issues are about to be saved. Issues of these files are reported as possibly outdated on next start,
+   * unless a {@link #saveAll(Map)} completes in the meantime.
+   */
+  public void writeFlushJournal(Collection<String> keys) throws IOException {
+    AtomicFiles.write(basePath.resolve(FLUSH_JOURNAL_FILENAME), out -> out.write(String.join("\n", keys).getBytes(UTF_8)));
   }
 
   @CheckForNull
   public Collection<Trackable> read(String key) throws IOException {
+    Optional<Sonarlint.Issues> issues = readIssues(key);
+    if (!issues.isPresent()) {
+      return null;
+    }
+    Collection<Trackable> trackables = fromProto(issues.get());
+    if (trackables == null) {
+      LOGGER.debug("Ignoring issues of " + key + " stored in an unknown format version " + issues.get().getVersion());
+    }
+    return trackables;
+  }
+
+  private Optional<Sonarlint.Issues> readIssues(String key) throws IOException {
     Optional<Sonarlint.Issues> issues = store.read(key);
-    if (issues.isPresent()) {
-      return transform(issues.get());
+    LocalObjectStore<String, Sonarlint.Issues> legacyStore = legacy;
+    if (issues.isPresent() || legacyStore == null) {
+      return issues;
+    }
+    issues = legacyStore.read(key);
+    // Legacy files may have been deleted in the meantime, once migrated
+    return issues.isPresent() ? issues : store.read(key);
+  }
+
+  /**
+   * Remove issues of files that don't exist anymore. Existence of files is checked by batches, with a pause between them
+   * to let other threads use the disk and the store.
+   *
+   * @return number of removed entries
+   */
+  public int removeStaleEntries(IProgressMonitor monitor) throws IOException {
+    long start = System.currentTimeMillis();
+    List<String> keys = new ArrayList<>(store.keys());
+    int removed = 0;
+    for (int from = 0; from < keys.size() && !monitor.isCanceled(); from += STALE_ENTRIES_BATCH_SIZE) {
+      List<String> stale = keys.subList(from, Math.min(from + STALE_ENTRIES_BATCH_SIZE, keys.size())).stream()
+        .filter(key -> !validator.apply(key))
+        .collect(Collectors.toList());
+      store.deleteAll(stale);
+      removed += stale.size();
+      if (from + STALE_ENTRIES_BATCH_SIZE < keys.size()) {
+        try {
+          Thread.sleep(STALE_ENTRIES_BATCH_PAUSE_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
     }
-    return null;
+    lastStaleEntriesRemovalTime = System.currentTimeMillis() - start;
+    int count = removed;
+    LOGGER.debug(() -> String.format("%d stale entries removed from %s out of %d in %d ms", count, basePath, keys.size(), lastStaleEntriesRemovalTime));
+    return removed;
   }
 
-  public void clean() {
-    store.deleteInvalid();
+  /**
+   * @return duration in ms of the last removal of stale entries, or -1 if it didn't run yet
+   */
+  public long getLastStaleEntriesRemovalTime() {
+    return lastStaleEntriesRemovalTime;
   }
 
   public void clear() {
-    FileUtils.deleteDirectory(basePath);
-    FileUtils.forceMkDirs(basePath);
+    stopMigration();
+    if (legacy != null) {
+      legacy = null;
+      deleteLegacyLayout();
+    }
+    try {
+      store.clear();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to clear issues in " + basePath, e);
+    }
   }
 
-  private static Collection<Trackable> transform(Sonarlint.Issues protoIssues) {
-    return protoIssues.getIssueList().stream()
-      .map(IssueStore::transform)
-      .filter(Objects::nonNull)
-      .collect(Collectors.toList());
+  /**
+   * Reclaim the space used by outdated issues now, instead of waiting for the background compaction.
+   */
+  public void compact() throws IOException {
+    store.compact();
   }
 
-  private static Sonarlint.Issues transform(Collection<Trackable> localIssues) {
-    Sonarlint.Issues.Builder builder = Sonarlint.Issues.newBuilder();
-    localIssues.stream()
-      .map(IssueStore::transform)
-      .filter(Objects::nonNull)
-      .forEach(builder::addIssue);
+  /**
+   * Release system resources. The store is opened again on next access.
+   */
+  public void close() {
+    closed = true;
+    stopMigration();
+    staleEntriesRemoval.cancel();
+    store.close();
+  }
 
-    return builder.build();
+  /**
+   * Decode issues of a file, in any version of the format up to {@link #FORMAT_VERSION}.
+   *
+   * @return null if the issues were written in a more recent format, by a newer version of the plugin
+   */
+  @CheckForNull
+  public static Collection<Trackable> fromProto(Sonarlint.Issues protoIssues) {
+    int version = protoIssues.getVersion();
+    if (version > FORMAT_VERSION) {
+      return null;
+    }
+    if (version == 0) {
+      return protoIssues.getIssueList().stream()
+        .map(ProtobufIssueTrackable::new)
+        .collect(Collectors.toList());
+    }
+    List<String> dictionary = protoIssues.getDictionaryList();
+    List<Trackable> trackables = new ArrayList<>(protoIssues.getIssueCount());
+    for (Sonarlint.Issues.Issue issue : protoIssues.getIssueList()) {
+      trackables.add(new ProtobufIssueTrackable(issue, dictionary.get(issue.getRuleKeyRef()), dictionary.get(issue.getMessageRef())));
+    }
+    return trackables;
   }
 
-  private static Trackable transform(Sonarlint.Issues.Issue issue) {
-    return new ProtobufIssueTrackable(issue);
+  /**
+   * Encode issues of a file in the latest version of the format. Rule keys and messages are stored once per file, in a dictionary.
+   */
+  public static Sonarlint.Issues toProto(Collection<Trackable> localIssues) {
+    Sonarlint.Issues.Builder builder = Sonarlint.Issues.newBuilder()
+      .setVersion(FORMAT_VERSION);
+    Map<String, Integer> dictionary = new HashMap<>();
+    for (Trackable localIssue : localIssues) {
+      builder.addIssue(toProto(localIssue, value -> dictionary.computeIfAbsent(value, v -> {
+        builder.addDictionary(v);
+        return dictionary.size();
+      })));
+    }
+    return builder.build();
   }
 
-  @CheckForNull
-  private static Sonarlint.Issues.Issue transform(Trackable localIssue) {
+  private static Sonarlint.Issues.Issue toProto(Trackable localIssue, ToIntFunction<String> dictionary) {
     Sonarlint.Issues.Issue.Builder builder = Sonarlint.Issues.Issue.newBuilder()
-      .setRuleKey(localIssue.getRuleKey())
-      .setMessage(localIssue.getMessage())
+      .setRuleKeyRef(dictionary.applyAsInt(localIssue.getRuleKey()))
+      .setMessageRef(dictionary.applyAsInt(localIssue.getMessage()))
       .setResolved(localIssue.isResolved());
 
     if (localIssue.getAssignee() != null) {
@@ -130,6 +473,29 @@ public class IssueStore {
     if (localIssue.getLine() != null) {
       builder.setLine(localIssue.getLine());
     }
+    if (localIssue.getTextRangeHash() != null) {
+      builder.setTextRangeHash(localIssue.getTextRangeHash());
+      builder.setHasTextRangeHash(true);
+    }
+    TextRange textRange = localIssue.getTextRange();
+    if (textRange != null && textRange.getStartLine() != null) {
+      builder.setTextRange(toProto(textRange));
+    }
+    return builder.build();
+  }
+
+  private static Sonarlint.Issues.TextRange toProto(TextRange textRange) {
+    Sonarlint.Issues.TextRange.Builder builder = Sonarlint.Issues.TextRange.newBuilder()
+      .setStartLine(textRange.getStartLine());
+    if (textRange.getStartLineOffset() != null) {
+      builder.setStartLineOffset(textRange.getStartLineOffset() + 1);
+    }
+    if (textRange.getEndLine() != null) {
+      builder.setEndLine(textRange.getEndLine());
+    }
+    if (textRange.getEndLineOffset() != null) {
+      builder.setEndLineOffset(textRange.getEndLineOffset() + 1);
+    }
     return builder.build();
   }
 }
@@ -19,32 +19,50 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarlint.eclipse.core.internal.markers.TextRange;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 
 import static org.sonarlint.eclipse.core.internal.tracking.DigestUtils.digest;
 
+/**
+ * Checksums are only computed the first time they are requested by the tracker, and the content they are computed from is only
+ * read at that time. Not thread safe, an instance is only supposed to be tracked once by a single thread.
+ */
 public class IssueTrackable implements Trackable {
 
   private final Issue issue;
   private final TextRange textRange;
-  private final Integer textRangeHash;
-  private final Integer lineHash;
+  private Supplier<String> textRangeContent;
+  private Supplier<String> lineContent;
+  private Integer textRangeHash;
+  private Integer lineHash;
 
   public IssueTrackable(Issue issue) {
-    this(issue, null, null, null);
+    this(issue, null, (Supplier<String>) null, (Supplier<String>) null);
   }
 
   public IssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable String textRangeContent, @Nullable String lineContent) {
+    this(issue, textRange, textRangeContent != null ? () -> textRangeContent : null, lineContent != null ? () -> lineContent : null);
+  }
+
+  /**
+   * @param textRangeContent called at most once, may return null if the content is not available
+   * @param lineContent called at most once, may return null if the content is not available
+   */
+  public IssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable Supplier<String> textRangeContent, @Nullable Supplier<String> lineContent) {
     this.issue = issue;
     this.textRange = textRange;
-    this.textRangeHash = textRangeContent != null ? checksum(textRangeContent) : null;
-    this.lineHash = lineContent != null ? checksum(lineContent) : null;
+    this.textRangeContent = textRangeContent;
+    this.lineContent = lineContent;
   }
 
-  private static int checksum(String content) {
-    return digest(content).hashCode();
+  @CheckForNull
+  private static Integer checksum(Supplier<String> contentSupplier) {
+    String content = contentSupplier.get();
+    return content != null ? digest(content).hashCode() : null;
   }
 
   @Override
@@ -59,11 +77,20 @@ public class IssueTrackable implements Trackable {
 
   @Override
   public Integer getTextRangeHash() {
+    if (textRangeContent != null) {
+      textRangeHash = checksum(textRangeContent);
+      // release the content (and the document it may reference)
+      textRangeContent = null;
+    }
     return textRangeHash;
   }
 
   @Override
   public Integer getLineHash() {
+    if (lineContent != null) {
+      lineHash = checksum(lineContent);
+      lineContent = null;
+    }
     return lineHash;
   }
 
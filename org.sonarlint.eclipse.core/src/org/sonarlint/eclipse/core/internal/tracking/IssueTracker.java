@@ -23,12 +23,23 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.CheckForNull;
 
 public class IssueTracker {
 
+  private static final Logger LOGGER = new Logger();
+
+  // Rough heap usage of a tracked issue: the compact TrackedIssue, its message and its share of the collection
+  static final int ESTIMATED_BYTES_PER_ISSUE = 200;
+  // Map entry, collection and file path
+  static final int ESTIMATED_BYTES_PER_FILE = 150;
+
   private final IssueTrackerCache cache;
 
+  // Issues of a file are tracked by one thread at a time, different files are tracked in parallel
+  private final StripedLocks locks = new StripedLocks();
+
   public IssueTracker(IssueTrackerCache cache) {
     this.cache = cache;
   }
@@ -40,14 +51,22 @@ public class IssueTracker {
    * @param file
    * @param trackables
    */
-  public synchronized Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
+  public Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
+    long digestCountBefore = DigestUtils.getThreadDigestCount();
     Collection<Trackable> tracked;
-    if (cache.isFirstAnalysis(file)) {
-      tracked = trackables;
-    } else {
-      tracked = matchAndTrack(cache.getCurrentTrackables(file), trackables);
+    Lock lock = locks.lock(file);
+    try {
+      if (cache.isFirstAnalysis(file)) {
+        tracked = freeze(trackables);
+      } else {
+        tracked = matchAndTrack(cache.getCurrentTrackables(file), trackables);
+      }
+      cache.put(file, tracked);
+    } finally {
+      lock.unlock();
     }
-    cache.put(file, tracked);
+    long digestCount = DigestUtils.getThreadDigestCount() - digestCountBefore;
+    LOGGER.debug(() -> "Tracked " + trackables.size() + " issue(s) of " + file + ", " + digestCount + " checksum(s) computed");
     return tracked;
   }
 
@@ -58,17 +77,22 @@ public class IssueTracker {
    * @param trackables
    */
   @CheckForNull
-  public synchronized Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
-    // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
-    // an analysis before that set the live issues for the file (even if it is empty)
-    Collection<Trackable> current = cache.getLiveOrFail(file);
-    if (current.isEmpty()) {
-      // whatever is the base, if current is empty, then nothing to do
-      return Collections.emptyList();
+  public Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
+    Lock lock = locks.lock(file);
+    try {
+      // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
+      // an analysis before that set the live issues for the file (even if it is empty)
+      Collection<Trackable> current = cache.getLiveOrFail(file);
+      if (current.isEmpty()) {
+        // whatever is the base, if current is empty, then nothing to do
+        return Collections.emptyList();
+      }
+      Collection<Trackable> tracked = matchAndTrack(trackables, current);
+      cache.put(file, tracked);
+      return tracked;
+    } finally {
+      lock.unlock();
     }
-    Collection<Trackable> tracked = matchAndTrack(trackables, current);
-    cache.put(file, tracked);
-    return tracked;
   }
 
   // note: the base issues are type T: sometimes mutable, sometimes not (for example server issues)
@@ -87,14 +111,58 @@ public class IssueTracker {
       }
       trackedIssues.add(next);
     }
-    return trackedIssues;
+    return freeze(trackedIssues);
+  }
+
+  /**
+   * Tracking is done, only keep the tracked state of issues, not the engine issues nor the wrappers.
+   */
+  private static Collection<Trackable> freeze(Collection<Trackable> trackables) {
+    Collection<Trackable> frozen = new ArrayList<>(trackables.size());
+    for (Trackable trackable : trackables) {
+      frozen.add(TrackedIssue.of(trackable));
+    }
+    return frozen;
   }
 
   public void clear() {
-    cache.clear();
+    locks.lockAll();
+    try {
+      cache.clear();
+    } finally {
+      locks.unlockAll();
+    }
+  }
+
+  /**
+   * Called when the flush of this tracker will not happen in time, for example at shutdown. Doesn't take the locks, they may be held
+   * by a stuck analysis or flush.
+   */
+  public void journalUnflushed() {
+    cache.journalUnflushed();
   }
 
   public void shutdown() {
-    cache.shutdown();
+    locks.lockAll();
+    try {
+      cache.shutdown();
+    } finally {
+      locks.unlockAll();
+    }
+    LOGGER.debug(() -> "Issue tracker locks: " + locks);
+  }
+
+  /**
+   * Rough estimation of the heap used by the issues kept in memory, in bytes.
+   */
+  public long getEstimatedMemory() {
+    return (long) cache.getLiveIssueCount() * ESTIMATED_BYTES_PER_ISSUE + (long) cache.getLiveFileCount() * ESTIMATED_BYTES_PER_FILE;
+  }
+
+  /**
+   * Contention on the per-file locks of this tracker.
+   */
+  public StripedLocks getLocks() {
+    return locks;
   }
 }
@@ -31,11 +31,27 @@ public interface IssueTrackerCache {
 
   void put(String file, Collection<Trackable> trackables);
 
+  /**
+   * Number of files whose issues are kept in memory.
+   */
+  int getLiveFileCount();
+
+  /**
+   * Number of issues kept in memory, for all files.
+   */
+  int getLiveIssueCount();
+
   /**
    * Empty the cache, delete everything.
    */
   void clear();
 
+  /**
+   * Record the files whose issues are not persisted yet, when a flush will not happen in time. Persistent implementations
+   * report them as outdated on next start. Must not wait for a running flush.
+   */
+  void journalUnflushed();
+
   /**
    * Shutdown the cache. This is the time for persistent implementations to flush everything to storage.
    */
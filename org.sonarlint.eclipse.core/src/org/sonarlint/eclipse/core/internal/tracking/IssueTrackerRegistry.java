@@ -19,31 +19,53 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 
 /**
  * Registry of per-module IssueTracker instances.
+ * Trackers of closed and deleted projects are flushed in background and released, they are created again on next access.
+ * Issues of deleted projects are kept in the store, since Eclipse also notifies the deletion of projects that are renamed or moved.
  */
-public class IssueTrackerRegistry {
+public class IssueTrackerRegistry implements IResourceChangeListener {
+
+  private static final Logger LOGGER = new Logger();
+
+  public static final int DEFAULT_SHUTDOWN_TIMEOUT_SECONDS = 10;
 
   private final Map<IProject, IssueTracker> registry = new HashMap<>();
+  private final Map<IProject, ReleaseJob> releasing = new HashMap<>();
   private final IssueTrackerCacheFactory cacheFactory;
 
   public IssueTrackerRegistry(IssueTrackerCacheFactory cacheFactory) {
     this.cacheFactory = cacheFactory;
   }
 
-  public synchronized IssueTracker getOrCreate(IProject project, String localModulePath) {
-    IssueTracker tracker = registry.get(project);
-    if (tracker == null) {
-      tracker = newTracker(project, localModulePath);
-      registry.put(project, tracker);
+  public IssueTracker getOrCreate(IProject project, String localModulePath) {
+    waitForRelease(project);
+    synchronized (this) {
+      IssueTracker tracker = registry.get(project);
+      if (tracker == null) {
+        tracker = newTracker(project, localModulePath);
+        registry.put(project, tracker);
+      }
+      return tracker;
     }
-    return tracker;
   }
 
   public synchronized Optional<IssueTracker> get(IProject project) {
@@ -54,9 +76,187 @@ public class IssueTrackerRegistry {
     return new IssueTracker(cacheFactory.apply(project, localModulePath));
   }
 
+  /**
+   * A new tracker would read the store of the project while the previous one is still writing it.
+   */
+  private void waitForRelease(IProject project) {
+    ReleaseJob job;
+    synchronized (this) {
+      job = releasing.get(project);
+    }
+    if (job != null) {
+      try {
+        job.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    if (event.getType() != IResourceChangeEvent.PRE_CLOSE && event.getType() != IResourceChangeEvent.PRE_DELETE) {
+      return;
+    }
+    IResource resource = event.getResource();
+    if (!(resource instanceof IProject)) {
+      return;
+    }
+    release((IProject) resource);
+  }
+
+  /**
+   * Forget the tracker of the project, after its issues are flushed to the store in background.
+   */
+  public void release(IProject project) {
+    ReleaseJob job;
+    synchronized (this) {
+      IssueTracker tracker = registry.remove(project);
+      if (tracker == null) {
+        return;
+      }
+      job = new ReleaseJob(project, tracker);
+      releasing.put(project, job);
+    }
+    job.schedule();
+  }
+
+  private synchronized void released(IProject project, ReleaseJob job) {
+    releasing.remove(project, job);
+    LOGGER.debug(() -> String.format("Released issue tracker of project '%s', %d tracker(s) left using about %d KB", project.getName(), registry.size(),
+      estimatedMemory() / 1024));
+  }
+
+  private class ReleaseJob extends Job {
+    private final IProject project;
+    private final IssueTracker tracker;
+
+    ReleaseJob(IProject project, IssueTracker tracker) {
+      super("Flush SonarLint issues of project '" + project.getName() + "'");
+      this.project = project;
+      this.tracker = tracker;
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      try {
+        perform();
+        return Status.OK_STATUS;
+      } catch (Exception e) {
+        return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to flush issues of project '" + project.getName() + "'", e);
+      } finally {
+        released(project, this);
+      }
+    }
+
+    void perform() {
+      tracker.shutdown();
+    }
+  }
+
+  /**
+   * Number of trackers currently in memory.
+   */
+  public synchronized int getLiveTrackerCount() {
+    return registry.size();
+  }
+
+  /**
+   * Rough estimation of the heap used by issues kept in memory by the trackers, in bytes.
+   */
+  public synchronized long getEstimatedMemory() {
+    return estimatedMemory();
+  }
+
+  private long estimatedMemory() {
+    long total = 0;
+    for (IssueTracker tracker : registry.values()) {
+      total += tracker.getEstimatedMemory();
+    }
+    return total;
+  }
+
   public void shutdown() {
-    for (IssueTracker issueTracker : registry.values()) {
-      issueTracker.shutdown();
+    shutdown(DEFAULT_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Flush all trackers, in parallel. Waits at most the given time, trackers that are not flushed in time are reported on next start.
+   */
+  public void shutdown(long timeout, TimeUnit unit) {
+    List<Flush> flushes = new ArrayList<>();
+    synchronized (this) {
+      for (IssueTracker tracker : registry.values()) {
+        flushes.add(new Flush(tracker, tracker::shutdown));
+      }
+      for (ReleaseJob job : releasing.values()) {
+        flushes.add(new Flush(job.tracker, () -> finish(job)));
+      }
+    }
+    if (flushes.isEmpty()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    int threads = Math.min(flushes.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "SonarLint issues flush");
+      // Don't prevent the JVM to exit if the deadline is reached
+      t.setDaemon(true);
+      return t;
+    });
+    for (Flush flush : flushes) {
+      executor.execute(flush);
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(timeout, unit)) {
+        LOGGER.error("Issues were not flushed in time, they will be reported as possibly outdated on next start");
+        // Flushes that are running journal their files themselves, the ones that never started must do it now
+        for (Runnable notStarted : executor.shutdownNow()) {
+          ((Flush) notStarted).journalUnflushed();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    LOGGER.debug(() -> String.format("Flushed %d issue tracker(s) in %d ms", flushes.size(), System.currentTimeMillis() - start));
+  }
+
+  private static class Flush implements Runnable {
+    private final IssueTracker tracker;
+    private final Runnable action;
+
+    Flush(IssueTracker tracker, Runnable action) {
+      this.tracker = tracker;
+      this.action = action;
+    }
+
+    @Override
+    public void run() {
+      try {
+        action.run();
+      } catch (Exception e) {
+        LOGGER.error("Unable to flush issues", e);
+      }
+    }
+
+    void journalUnflushed() {
+      tracker.journalUnflushed();
+    }
+  }
+
+  private static void finish(ReleaseJob job) {
+    if (job.cancel()) {
+      // not started yet, the job manager may not run it anymore
+      job.perform();
+      return;
+    }
+    try {
+      job.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -0,0 +1,58 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
+
+/**
+ * An ObjectStore on the local filesystem, whose keys can be listed.
+ *
+ * @param <K> type of the key to store by and used when reading back; must be hashable
+ * @param <V> type of the value to store
+ */
+interface LocalObjectStore<K, V> extends ObjectStore<K, V> {
+
+  boolean contains(K key);
+
+  Collection<K> keys();
+
+  /**
+   * Same as writing each entry, but implementations can batch the updates of their metadata.
+   */
+  void writeAll(Map<K, V> values) throws IOException;
+
+  /**
+   * Same as deleting each entry, but implementations can batch the updates of their metadata.
+   */
+  void deleteAll(Collection<K> keys) throws IOException;
+
+  /**
+   * Delete all entries.
+   */
+  void clear() throws IOException;
+
+  /**
+   * Release system resources. The store is opened again if it is used after being closed.
+   */
+  void close();
+}
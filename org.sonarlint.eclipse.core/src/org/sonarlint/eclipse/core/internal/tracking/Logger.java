@@ -19,14 +19,23 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.util.function.Supplier;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 
 public class Logger {
 
+  public void error(String message) {
+    SonarLintLogger.get().error(message);
+  }
+
   public void error(String message, Exception e) {
     SonarLintLogger.get().error(message, e);
   }
 
+  public void info(String message) {
+    SonarLintLogger.get().info(message);
+  }
+
   public void debug(String message, Exception e) {
     SonarLintLogger.get().debug(message, e);
   }
@@ -35,4 +44,8 @@ public class Logger {
     SonarLintLogger.get().debug(message);
   }
 
+  public void debug(Supplier<String> messageSupplier) {
+    SonarLintLogger.get().debug(messageSupplier);
+  }
+
 }
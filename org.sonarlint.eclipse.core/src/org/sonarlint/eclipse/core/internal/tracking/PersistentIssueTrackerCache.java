@@ -23,8 +23,18 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import javax.annotation.CheckForNull;
+
+/**
+ * Keeps the issues of the most recently used files in memory, the others are persisted in the store.
+ * Thread safe: the in-memory entries are held in a concurrent map, and store I/O is only serialized per file.
+ */
 public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
   private static final Logger LOGGER = new Logger();
@@ -32,64 +42,68 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   static final int MAX_ENTRIES = 100;
 
   private final IssueStore store;
-  private final Map<String, Collection<Trackable>> cache;
+  private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+  // Entries evicted from the cache whose persistence is not finished yet, so that they are never missing for readers
+  private final Map<String, Entry> evicted = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  // Serialize store I/O of a given file
+  private final StripedLocks storeLocks = new StripedLocks();
 
   public PersistentIssueTrackerCache(IssueStore store) {
     this.store = store;
-    this.cache = new LimitedSizeLinkedHashMap();
   }
 
-  /**
-   * Keeps a maximum number of entries in the map. On insertion, if the limit is passed, the entry accessed the longest time ago
-   * is flushed into cache and removed from the map.
-   */
-  private class LimitedSizeLinkedHashMap extends LinkedHashMap<String, Collection<Trackable>> {
-    LimitedSizeLinkedHashMap() {
-      super(MAX_ENTRIES, 0.75f, true);
-    }
+  private class Entry {
+    private final Collection<Trackable> trackables;
+    private volatile long lastAccess;
 
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<String, Collection<Trackable>> eldest) {
-      if (size() <= MAX_ENTRIES) {
-        return false;
-      }
+    Entry(Collection<Trackable> trackables) {
+      this.trackables = trackables;
+      touch();
+    }
 
-      String key = eldest.getKey();
-      try {
-        LOGGER.debug("Persisting issues for " + key);
-        store.save(key, eldest.getValue());
-      } catch (IOException e) {
-        throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
-      }
-      return true;
+    Collection<Trackable> touch() {
+      lastAccess = clock.incrementAndGet();
+      return trackables;
     }
   }
 
   @Override
   public boolean isFirstAnalysis(String file) {
-    return !cache.containsKey(file) && !store.contains(file);
+    return !cache.containsKey(file) && !evicted.containsKey(file) && !store.contains(file);
   }
-  
+
   @Override
-  public synchronized Collection<Trackable> getLiveOrFail(String file) {
-    Collection<Trackable> liveTrackables = cache.get(file);
+  public Collection<Trackable> getLiveOrFail(String file) {
+    Collection<Trackable> liveTrackables = getLive(file);
     if (liveTrackables != null) {
       return liveTrackables;
     }
-    
+
     throw new IllegalStateException("No issues in cache for file: " + file);
   }
 
+  @CheckForNull
+  private Collection<Trackable> getLive(String file) {
+    Entry entry = cache.get(file);
+    if (entry != null) {
+      return entry.touch();
+    }
+    entry = evicted.get(file);
+    return entry != null ? entry.trackables : null;
+  }
+
   /**
    * Read issues from a file that is cached. On cache miss, it won't fallback to the persistent store.
    */
   @Override
-  public synchronized Collection<Trackable> getCurrentTrackables(String file) {
-    Collection<Trackable> liveTrackables = cache.get(file);
+  public Collection<Trackable> getCurrentTrackables(String file) {
+    Collection<Trackable> liveTrackables = getLive(file);
     if (liveTrackables != null) {
       return liveTrackables;
     }
 
+    Lock lock = storeLocks.lock(file);
     try {
       Collection<Trackable> storedTrackables = store.read(file);
       if (storedTrackables != null) {
@@ -97,38 +111,130 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
       }
     } catch (IOException e) {
       LOGGER.error(String.format("Failed to read issues from store for file %s", file), e);
+    } finally {
+      lock.unlock();
     }
     return Collections.emptyList();
   }
 
   @Override
-  public synchronized void put(String file, Collection<Trackable> trackables) {
-    cache.put(file, trackables);
+  public void put(String file, Collection<Trackable> trackables) {
+    cache.put(file, new Entry(trackables));
+    while (cache.size() > MAX_ENTRIES) {
+      evictEldest();
+    }
+  }
+
+  /**
+   * The entry accessed the longest time ago is flushed into the store and removed from the cache. Finding it is linear, but the
+   * cache is small and it doesn't require a global lock.
+   */
+  private void evictEldest() {
+    Map.Entry<String, Entry> eldest = null;
+    for (Map.Entry<String, Entry> e : cache.entrySet()) {
+      if (eldest == null || e.getValue().lastAccess < eldest.getValue().lastAccess) {
+        eldest = e;
+      }
+    }
+    if (eldest == null) {
+      return;
+    }
+    String key = eldest.getKey();
+    Entry entry = eldest.getValue();
+    // Register the eviction first, so that readers always find the issues somewhere
+    evicted.put(key, entry);
+    if (!cache.remove(key, entry)) {
+      // Concurrently evicted or replaced
+      evicted.remove(key, entry);
+      return;
+    }
+    Lock lock = storeLocks.lock(key);
+    try {
+      if (evicted.get(key) != entry) {
+        // A more recent version of the file was evicted or flushed in the meantime
+        return;
+      }
+      LOGGER.debug(() -> "Persisting issues for " + key);
+      store.save(key, entry.trackables);
+      evicted.remove(key, entry);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int getLiveFileCount() {
+    return cache.size() + evicted.size();
+  }
+
+  @Override
+  public int getLiveIssueCount() {
+    int count = 0;
+    for (Entry entry : cache.values()) {
+      count += entry.trackables.size();
+    }
+    for (Entry entry : evicted.values()) {
+      count += entry.trackables.size();
+    }
+    return count;
   }
 
   @Override
-  public synchronized void clear() {
-    store.clear();
-    cache.clear();
+  public void clear() {
+    storeLocks.lockAll();
+    try {
+      store.clear();
+      cache.clear();
+      evicted.clear();
+    } finally {
+      storeLocks.unlockAll();
+    }
   }
 
   /**
    * Flushes all cached entries to disk.
    * It does not clear the cache.
    */
-  public synchronized void flushAll() {
+  public void flushAll() {
     LOGGER.debug("Persisting all issues");
-    cache.forEach((path, trackables) -> {
-      try {
-        store.save(path, trackables);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to flush cache", e);
-      }
-    });
+    storeLocks.lockAll();
+    try {
+      Map<String, Entry> pendingEvictions = new LinkedHashMap<>(evicted);
+      Map<String, Collection<Trackable>> toFlush = new LinkedHashMap<>();
+      pendingEvictions.forEach((path, entry) -> toFlush.put(path, entry.trackables));
+      // Cached issues are more recent than pending evicted ones
+      cache.forEach((path, entry) -> toFlush.put(path, entry.trackables));
+      store.saveAll(toFlush);
+      // Evictions waiting for the lock have nothing left to save
+      pendingEvictions.forEach(evicted::remove);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to flush cache", e);
+    } finally {
+      storeLocks.unlockAll();
+    }
+    LOGGER.debug(() -> "Issue store locks: " + storeLocks);
+  }
+
+  @Override
+  public void journalUnflushed() {
+    // No lock, a flush may be stuck while holding them. Reading keys of the concurrent maps is safe.
+    Set<String> keys = new LinkedHashSet<>(evicted.keySet());
+    keys.addAll(cache.keySet());
+    if (keys.isEmpty()) {
+      return;
+    }
+    try {
+      store.writeFlushJournal(keys);
+    } catch (IOException e) {
+      LOGGER.error("Failed to journal unflushed issues", e);
+    }
   }
 
   @Override
-  public synchronized void shutdown() {
+  public void shutdown() {
     flushAll();
+    store.close();
   }
 }
@@ -19,16 +19,33 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import javax.annotation.CheckForNull;
 import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint.Issues.Issue;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 
 public class ProtobufIssueTrackable implements Trackable {
 
   private final Issue issue;
+  private final String ruleKey;
+  private final String message;
 
+  /**
+   * For issues in version 0 of the format, where rule key and message are stored in the issue.
+   */
   public ProtobufIssueTrackable(Issue issue) {
+    this(issue, issue.getRuleKey(), issue.getMessage());
+  }
+
+  /**
+   * @param ruleKey rule key of the issue, resolved from the dictionary of the file
+   * @param message message of the issue, resolved from the dictionary of the file
+   */
+  public ProtobufIssueTrackable(Issue issue, String ruleKey, String message) {
     this.issue = issue;
+    this.ruleKey = ruleKey;
+    this.message = message;
   }
 
   @Override
@@ -38,12 +55,12 @@ public class ProtobufIssueTrackable implements Trackable {
 
   @Override
   public String getMessage() {
-    return issue.getMessage();
+    return message;
   }
 
   @Override
   public Integer getTextRangeHash() {
-    return null;
+    return issue.getHasTextRangeHash() ? issue.getTextRangeHash() : null;
   }
 
   @Override
@@ -53,7 +70,7 @@ public class ProtobufIssueTrackable implements Trackable {
 
   @Override
   public String getRuleKey() {
-    return issue.getRuleKey();
+    return ruleKey;
   }
 
   @Override
@@ -88,6 +105,16 @@ public class ProtobufIssueTrackable implements Trackable {
 
   @Override
   public TextRange getTextRange() {
-    throw new UnsupportedOperationException();
+    if (!issue.hasTextRange()) {
+      return null;
+    }
+    Sonarlint.Issues.TextRange textRange = issue.getTextRange();
+    return new TextRange(textRange.getStartLine(), decodeOffset(textRange.getStartLineOffset()),
+      textRange.getEndLine() != 0 ? textRange.getEndLine() : null, decodeOffset(textRange.getEndLineOffset()));
+  }
+
+  @CheckForNull
+  private static Integer decodeOffset(int storedOffset) {
+    return storedOffset != 0 ? (storedOffset - 1) : null;
   }
 }
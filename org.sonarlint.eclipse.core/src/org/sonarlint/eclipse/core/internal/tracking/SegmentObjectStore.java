@@ -0,0 +1,670 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A log-structured ObjectStore: all entries are appended to a single segment file, and an in-memory index keeps the location
+ * of the latest version of each entry. Reads go through a memory mapping of the segment. When most of the segment is made of
+ * obsolete versions, live entries are copied to a new segment in background.
+ * <p>
+ * Record format: key length (int), value length (int, -1 for a deletion), key (UTF-8), value, CRC32 of key and value.
+ * A truncated or corrupted record, typically left by a crash during an append, ends the segment and is discarded on load.
+ *
+ * @param <V> type of the value to store
+ */
+public class SegmentObjectStore<V> implements LocalObjectStore<String, V> {
+  private static final Logger LOGGER = new Logger();
+
+  public static final String SEGMENT_PREFIX = "segment-";
+  static final String SEGMENT_SUFFIX = ".log";
+  // Don't bother compacting small segments
+  public static final long MIN_GARBAGE_FOR_COMPACTION = 1024L * 1024;
+
+  private static final int HEADER_SIZE = 8;
+  private static final int CRC_SIZE = 4;
+  private static final int DELETED = -1;
+
+  private final Path dir;
+  private final Reader<V> reader;
+  private final Writer<V> writer;
+  private final Consumer<Runnable> compactionScheduler;
+
+  // All fields below are guarded by this
+  private final Map<String, Location> index = new HashMap<>();
+  private FileChannel channel;
+  private Path segment;
+  private long generation;
+  private long size;
+  // Bytes used by obsolete records
+  private long garbage;
+  private MappedByteBuffer mapped;
+  private boolean compactionScheduled;
+  private boolean compacting;
+
+  /**
+   * @param compactionScheduler runs the given compaction task in background
+   */
+  public SegmentObjectStore(Path dir, Reader<V> reader, Writer<V> writer, Consumer<Runnable> compactionScheduler) {
+    this.dir = dir;
+    this.reader = reader;
+    this.writer = writer;
+    this.compactionScheduler = compactionScheduler;
+  }
+
+  private static class Location {
+    private final long offset;
+    private final int keyLength;
+    private final int valueLength;
+
+    Location(long offset, int keyLength, int valueLength) {
+      this.offset = offset;
+      this.keyLength = keyLength;
+      this.valueLength = valueLength;
+    }
+
+    long valueOffset() {
+      return offset + HEADER_SIZE + keyLength;
+    }
+
+    int recordSize() {
+      return recordSize(keyLength, valueLength);
+    }
+
+    static int recordSize(int keyLength, int valueLength) {
+      return HEADER_SIZE + keyLength + Math.max(valueLength, 0) + CRC_SIZE;
+    }
+  }
+
+  @Override
+  public Optional<V> read(String key) throws IOException {
+    ByteBuffer value;
+    synchronized (this) {
+      value = io(() -> {
+        Location location = index.get(key);
+        if (location == null) {
+          return null;
+        }
+        ByteBuffer buffer = mapping(location.valueOffset() + location.valueLength).duplicate();
+        buffer.position((int) location.valueOffset());
+        buffer.limit((int) location.valueOffset() + location.valueLength);
+        // The slice stays valid even if the segment is compacted in the meantime
+        return buffer.slice();
+      });
+    }
+    if (value == null) {
+      return Optional.empty();
+    }
+    return Optional.of(reader.apply(new ByteBufferInputStream(value)));
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    ensureOpenOrFail();
+    return index.containsKey(key);
+  }
+
+  @Override
+  public synchronized Collection<String> keys() {
+    ensureOpenOrFail();
+    return new ArrayList<>(index.keySet());
+  }
+
+  @Override
+  public void write(String key, V value) throws IOException {
+    byte[] bytes = serialize(value);
+    synchronized (this) {
+      io(() -> {
+        append(key, bytes);
+        return null;
+      });
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public void writeAll(Map<String, V> values) throws IOException {
+    Map<String, byte[]> serialized = new LinkedHashMap<>();
+    values.forEach((key, value) -> serialized.put(key, serialize(value)));
+    synchronized (this) {
+      io(() -> {
+        for (Map.Entry<String, byte[]> entry : serialized.entrySet()) {
+          append(entry.getKey(), entry.getValue());
+        }
+        channel.force(false);
+        return null;
+      });
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public void delete(String key) throws IOException {
+    synchronized (this) {
+      io(() -> {
+        if (index.containsKey(key)) {
+          append(key, null);
+        }
+        return null;
+      });
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public void deleteAll(Collection<String> keys) throws IOException {
+    synchronized (this) {
+      io(() -> {
+        for (String key : keys) {
+          if (index.containsKey(key)) {
+            append(key, null);
+          }
+        }
+        return null;
+      });
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public synchronized void clear() throws IOException {
+    close();
+    long lastGeneration = generation;
+    for (Path existing : listSegments()) {
+      lastGeneration = Math.max(lastGeneration, generationOf(existing));
+      // A mapped segment can't be deleted on some platforms, the new empty generation will hide it
+      deleteQuietly(existing);
+    }
+    Files.createDirectories(dir);
+    Files.deleteIfExists(segmentPath(lastGeneration + 1));
+    Files.createFile(segmentPath(lastGeneration + 1));
+  }
+
+  @Override
+  public synchronized void close() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      LOGGER.error("Failed to close " + segment, e);
+    }
+    channel = null;
+    mapped = null;
+    index.clear();
+    size = 0;
+    garbage = 0;
+  }
+
+  /**
+   * Copy live entries to a new segment, so that obsolete ones don't use disk space anymore. The copy is done without holding the
+   * lock, so that reads and writes are not blocked: records appended in the meantime are copied when the new segment replaces
+   * the current one.
+   */
+  public void compact() throws IOException {
+    Compaction compaction;
+    synchronized (this) {
+      compactionScheduled = false;
+      compaction = io(this::startCompaction);
+    }
+    if (compaction == null) {
+      return;
+    }
+    try {
+      compaction.copyLiveEntries();
+      synchronized (this) {
+        io(() -> {
+          finishCompaction(compaction);
+          return null;
+        });
+      }
+    } finally {
+      compaction.discard();
+      synchronized (this) {
+        compacting = false;
+      }
+    }
+  }
+
+  @CheckForNull
+  private Compaction startCompaction() throws IOException {
+    if (compacting || garbage == 0) {
+      return null;
+    }
+    compacting = true;
+    try {
+      // The mapping stays valid while the segment is appended, or even closed
+      ByteBuffer content = size > 0 ? mapping(size).duplicate() : ByteBuffer.allocate(0);
+      return new Compaction(channel, content, size, new HashMap<>(index), segmentPath(generation + 1));
+    } catch (IOException | RuntimeException e) {
+      compacting = false;
+      throw e;
+    }
+  }
+
+  private void finishCompaction(Compaction compaction) throws IOException {
+    if (channel != compaction.source) {
+      // Closed or cleared during the copy, the index the copy was made from may not match the segment anymore
+      LOGGER.debug("Compaction of issue store " + dir + " abandoned, the store was closed in the meantime");
+      return;
+    }
+    long sizeBefore = size;
+    // Records appended during the copy are kept as is, with their offsets shifted
+    long tailOffset = compaction.offset;
+    if (size > compaction.copiedSize) {
+      ByteBuffer tail = mapping(size).duplicate();
+      tail.position((int) compaction.copiedSize);
+      tail.limit((int) size);
+      compaction.append(tail);
+    }
+    Map<String, Location> newIndex = new HashMap<>();
+    long liveSize = 0;
+    for (Map.Entry<String, Location> entry : index.entrySet()) {
+      Location location = entry.getValue();
+      if (location.offset >= compaction.copiedSize) {
+        newIndex.put(entry.getKey(), new Location(location.offset - compaction.copiedSize + tailOffset, location.keyLength, location.valueLength));
+      } else {
+        // Not updated since the start of the compaction
+        newIndex.put(entry.getKey(), compaction.copied.get(entry.getKey()));
+      }
+      liveSize += location.recordSize();
+    }
+    Path target = compaction.commit();
+    Path previous = segment;
+    channel.close();
+    channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    segment = target;
+    generation = generationOf(target);
+    size = compaction.offset;
+    garbage = size - liveSize;
+    mapped = null;
+    index.clear();
+    index.putAll(newIndex);
+    deleteQuietly(previous);
+    long compactedSize = size;
+    LOGGER.debug(() -> String.format("Issue store %s compacted from %d to %d bytes in %d ms", dir, sizeBefore, compactedSize,
+      System.currentTimeMillis() - compaction.start));
+  }
+
+  /**
+   * Copy of the live entries of a segment to a temporary file, that becomes the next generation of the segment once complete.
+   */
+  private class Compaction {
+    private final long start = System.currentTimeMillis();
+    private final FileChannel source;
+    private final ByteBuffer content;
+    private final long copiedSize;
+    // Location of the copied entries, in the current segment
+    private final Map<String, Location> entries;
+    // Location of the copied entries, in the new segment
+    private final Map<String, Location> copied = new HashMap<>();
+    private final Path target;
+    private final Path tmp;
+    private final FileChannel out;
+    private long offset;
+
+    Compaction(FileChannel source, ByteBuffer content, long copiedSize, Map<String, Location> entries, Path target) throws IOException {
+      this.source = source;
+      this.content = content;
+      this.copiedSize = copiedSize;
+      this.entries = entries;
+      this.target = target;
+      this.tmp = dir.resolve(target.getFileName().toString() + AtomicFiles.TMP_SUFFIX);
+      this.out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    void copyLiveEntries() throws IOException {
+      for (Map.Entry<String, Location> entry : entries.entrySet()) {
+        Location location = entry.getValue();
+        ByteBuffer record = content.duplicate();
+        record.position((int) location.offset);
+        record.limit((int) location.offset + location.recordSize());
+        long recordOffset = offset;
+        append(record);
+        copied.put(entry.getKey(), new Location(recordOffset, location.keyLength, location.valueLength));
+      }
+    }
+
+    void append(ByteBuffer bytes) throws IOException {
+      while (bytes.hasRemaining()) {
+        offset += out.write(bytes, offset);
+      }
+    }
+
+    Path commit() throws IOException {
+      out.force(true);
+      out.close();
+      try {
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, target);
+      }
+      return target;
+    }
+
+    /**
+     * Delete the temporary file, if the compaction was not committed.
+     */
+    void discard() {
+      try {
+        out.close();
+      } catch (IOException e) {
+        LOGGER.debug("Failed to close " + tmp, e);
+      }
+      deleteQuietly(tmp);
+    }
+  }
+
+  private void compactIfNeeded() {
+    synchronized (this) {
+      if (compactionScheduled || garbage < MIN_GARBAGE_FOR_COMPACTION || garbage * 2 < size) {
+        return;
+      }
+      compactionScheduled = true;
+    }
+    compactionScheduler.accept(() -> {
+      try {
+        compact();
+      } catch (IOException e) {
+        LOGGER.error("Failed to compact issue store " + dir, e);
+      }
+    });
+  }
+
+  @FunctionalInterface
+  private interface IOAction<T> {
+    T run() throws IOException;
+  }
+
+  /**
+   * Run an I/O operation on the segment. An interruption of the calling thread during the operation, for example by the shutdown
+   * of an executor, closes the channel: the interruption is deferred until the operation is done, and if the channel was closed
+   * anyway, it is reopened and the operation is attempted again. Reopening discards a record that was only partially written.
+   */
+  @CheckForNull
+  private <T> T io(IOAction<T> action) throws IOException {
+    boolean interrupted = Thread.interrupted();
+    try {
+      ensureOpen();
+      try {
+        return action.run();
+      } catch (ClosedChannelException e) {
+        interrupted |= Thread.interrupted();
+        LOGGER.debug("Reopening issue store " + dir + " after its channel was closed", e);
+        close();
+        ensureOpen();
+        return action.run();
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void append(String key, @Nullable byte[] value) throws IOException {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    int valueLength = value != null ? value.length : DELETED;
+    int recordSize = Location.recordSize(keyBytes.length, valueLength);
+    ByteBuffer record = ByteBuffer.allocate(recordSize);
+    record.putInt(keyBytes.length).putInt(valueLength).put(keyBytes);
+    if (value != null) {
+      record.put(value);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), HEADER_SIZE, recordSize - HEADER_SIZE - CRC_SIZE);
+    record.putInt((int) crc.getValue());
+    record.flip();
+
+    long recordOffset = size;
+    long offset = size;
+    while (record.hasRemaining()) {
+      offset += channel.write(record, offset);
+    }
+    size = offset;
+    Location previous = value != null ? index.put(key, new Location(recordOffset, keyBytes.length, valueLength)) : index.remove(key);
+    if (previous != null) {
+      garbage += previous.recordSize();
+    }
+    if (value == null) {
+      // deletions are only useful until the next compaction
+      garbage += recordSize;
+    }
+  }
+
+  private byte[] serialize(V value) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.accept(out, value);
+    return out.toByteArray();
+  }
+
+  private MappedByteBuffer mapping(long end) throws IOException {
+    if (mapped == null || mapped.capacity() < end) {
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Issue store segment is too large: " + segment);
+      }
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    return mapped;
+  }
+
+  private void ensureOpenOrFail() {
+    try {
+      ensureOpen();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open issue store " + dir, e);
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (channel != null) {
+      if (channel.isOpen()) {
+        return;
+      }
+      // Closed by an interruption, the index may not match the content of the segment anymore
+      close();
+    }
+    Files.createDirectories(dir);
+    List<Path> segments = listSegments();
+    if (segments.isEmpty()) {
+      generation = 0;
+      segment = segmentPath(0);
+    } else {
+      segment = segments.get(segments.size() - 1);
+      generation = generationOf(segment);
+      // Older generations are left by an interrupted compaction or clear
+      for (Path old : segments.subList(0, segments.size() - 1)) {
+        deleteQuietly(old);
+      }
+    }
+    channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    load();
+  }
+
+  /**
+   * Records are read with positional reads rather than through a mapping, so that a truncated tail can be removed: a mapped file
+   * can't be truncated on some platforms.
+   */
+  private void load() throws IOException {
+    index.clear();
+    garbage = 0;
+    mapped = null;
+    size = channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    ByteBuffer content = ByteBuffer.allocate(0);
+    CRC32 crc = new CRC32();
+    while (position + HEADER_SIZE <= size) {
+      header.clear();
+      readFully(header, position);
+      int keyLength = header.getInt(0);
+      int valueLength = header.getInt(4);
+      if (keyLength <= 0 || valueLength < DELETED) {
+        break;
+      }
+      long recordSize = (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0) + CRC_SIZE;
+      if (position + recordSize > size) {
+        break;
+      }
+      int contentSize = (int) recordSize - HEADER_SIZE;
+      if (content.capacity() < contentSize) {
+        content = ByteBuffer.allocate(contentSize);
+      }
+      content.clear();
+      content.limit(contentSize);
+      readFully(content, position + HEADER_SIZE);
+      crc.reset();
+      crc.update(content.array(), 0, contentSize - CRC_SIZE);
+      if ((int) crc.getValue() != content.getInt(contentSize - CRC_SIZE)) {
+        break;
+      }
+      String key = new String(content.array(), 0, keyLength, UTF_8);
+      Location previous = valueLength == DELETED ? index.remove(key) : index.put(key, new Location(position, keyLength, valueLength));
+      if (previous != null) {
+        garbage += previous.recordSize();
+      }
+      if (valueLength == DELETED) {
+        garbage += recordSize;
+      }
+      position += recordSize;
+    }
+    if (position < size) {
+      long discarded = size - position;
+      LOGGER.info(String.format("Discarded %d bytes of incomplete issues at the end of %s", discarded, segment));
+      channel.truncate(position);
+      size = position;
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of " + segment);
+      }
+      offset += read;
+    }
+  }
+
+  private List<Path> listSegments() throws IOException {
+    if (!dir.toFile().isDirectory()) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      return files
+        .filter(p -> generationOf(p) >= 0)
+        .sorted((p1, p2) -> Long.compare(generationOf(p1), generationOf(p2)))
+        .collect(Collectors.toList());
+    }
+  }
+
+  private Path segmentPath(long segmentGeneration) {
+    return dir.resolve(SEGMENT_PREFIX + segmentGeneration + SEGMENT_SUFFIX);
+  }
+
+  /**
+   * @return -1 if the file is not a segment
+   */
+  private static long generationOf(Path path) {
+    String name = path.getFileName().toString();
+    if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static void deleteQuietly(@CheckForNull Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to delete " + path, e);
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -75,7 +75,7 @@ public class ServerIssueUpdater {
   public void shutdown() {
     List<Runnable> rejected = executorService.shutdownNow();
     if (!rejected.isEmpty()) {
-      LOGGER.debug("rejected " + rejected.size() + " pending tasks");
+      LOGGER.debug(() -> "rejected " + rejected.size() + " pending tasks");
     }
   }
 
@@ -122,7 +122,7 @@ public class ServerIssueUpdater {
       String fileKey = toFileKey(resource);
 
       try {
-        LOGGER.debug("fetchServerIssues moduleKey=" + moduleKey + ", filepath=" + fileKey);
+        LOGGER.debug(() -> "fetchServerIssues moduleKey=" + moduleKey + ", filepath=" + fileKey);
         return engine.downloadServerIssues(serverConfiguration, moduleKey, fileKey);
       } catch (DownloadException e) {
         console.info(e.getMessage());
@@ -21,11 +21,16 @@ package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Map;
 
 interface StoreIndex<T> {
   Collection<T> keys();
 
   void save(T key, Path path);
 
+  void saveAll(Map<T, Path> paths);
+
   void delete(T key);
+
+  void deleteAll(Collection<T> keys);
 }
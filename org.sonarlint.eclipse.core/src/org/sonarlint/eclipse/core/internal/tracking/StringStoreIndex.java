@@ -21,7 +21,6 @@ package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -29,6 +28,9 @@ import java.util.Collections;
 import java.util.Map;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
 
+/**
+ * The whole index is rewritten on each change, so accesses are serialized: entries of different files can be stored concurrently.
+ */
 class StringStoreIndex implements StoreIndex<String> {
   public static final String INDEX_FILENAME = "index.pb";
   private final Path storeBasePath;
@@ -40,7 +42,7 @@ class StringStoreIndex implements StoreIndex<String> {
   }
 
   @Override
-  public Collection<String> keys() {
+  public synchronized Collection<String> keys() {
     return load().keySet();
   }
 
@@ -48,7 +50,7 @@ class StringStoreIndex implements StoreIndex<String> {
     if (!indexFilePath.toFile().exists()) {
       return Collections.emptyMap();
     }
-    try (InputStream stream = Files.newInputStream(indexFilePath)) {
+    try (InputStream stream = Compression.decompress(Files.newInputStream(indexFilePath))) {
       return Sonarlint.StorageIndex.parseFrom(stream).getMappedPathByKeyMap();
     } catch (IOException e) {
       throw new IllegalStateException("Failed to read local issue store index", e);
@@ -56,7 +58,7 @@ class StringStoreIndex implements StoreIndex<String> {
   }
 
   @Override
-  public void save(String storageKey, Path path) {
+  public synchronized void save(String storageKey, Path path) {
     String relativeMappedPath = storeBasePath.relativize(path).toString();
     Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
     builder.putAllMappedPathByKey(load());
@@ -65,16 +67,38 @@ class StringStoreIndex implements StoreIndex<String> {
   }
 
   @Override
-  public void delete(String storageKey) {
+  public synchronized void saveAll(Map<String, Path> paths) {
+    if (paths.isEmpty()) {
+      return;
+    }
+    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
+    builder.putAllMappedPathByKey(load());
+    paths.forEach((storageKey, path) -> builder.putMappedPathByKey(storageKey, storeBasePath.relativize(path).toString()));
+    save(builder.build());
+  }
+
+  @Override
+  public synchronized void delete(String storageKey) {
     Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
     builder.putAllMappedPathByKey(load());
     builder.removeMappedPathByKey(storageKey);
     save(builder.build());
   }
 
+  @Override
+  public synchronized void deleteAll(Collection<String> storageKeys) {
+    if (storageKeys.isEmpty()) {
+      return;
+    }
+    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
+    builder.putAllMappedPathByKey(load());
+    storageKeys.forEach(builder::removeMappedPathByKey);
+    save(builder.build());
+  }
+
   private void save(Sonarlint.StorageIndex index) {
-    try (OutputStream stream = Files.newOutputStream(indexFilePath)) {
-      index.writeTo(stream);
+    try {
+      AtomicFiles.write(indexFilePath, out -> out.write(index.toByteArray()));
     } catch (IOException e) {
       throw new IllegalStateException("Failed to write local issue store index", e);
     }
@@ -0,0 +1,127 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks, a given file always maps to the same lock. Operations on a file are serialized, while operations on
+ * different files can proceed in parallel (unless both files map to the same stripe).
+ * Also counts how often callers had to wait for a lock, to monitor contention.
+ */
+public class StripedLocks {
+
+  public static final int DEFAULT_STRIPES = 32;
+
+  private final ReentrantLock[] locks;
+
+  private final LongAdder acquisitions = new LongAdder();
+  private final LongAdder contendedAcquisitions = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+
+  public StripedLocks() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * @param stripes rounded up to the next power of 2
+   */
+  public StripedLocks(int stripes) {
+    int size = stripes <= 1 ? 1 : (Integer.highestOneBit(stripes - 1) << 1);
+    this.locks = new ReentrantLock[size];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Acquire the lock of the given file. Callers must release it in a finally block.
+   */
+  public Lock lock(String file) {
+    ReentrantLock lock = locks[indexOf(file)];
+    acquire(lock);
+    return lock;
+  }
+
+  /**
+   * Acquire all locks, for operations on every file at once. Callers must call {@link #unlockAll()} in a finally block.
+   */
+  public void lockAll() {
+    // always in the same order to avoid deadlocks between two callers
+    for (ReentrantLock lock : locks) {
+      acquire(lock);
+    }
+  }
+
+  public void unlockAll() {
+    for (int i = locks.length - 1; i >= 0; i--) {
+      if (locks[i].isHeldByCurrentThread()) {
+        locks[i].unlock();
+      }
+    }
+  }
+
+  private void acquire(ReentrantLock lock) {
+    acquisitions.increment();
+    if (lock.tryLock()) {
+      return;
+    }
+    contendedAcquisitions.increment();
+    long start = System.nanoTime();
+    lock.lock();
+    waitNanos.add(System.nanoTime() - start);
+  }
+
+  private int indexOf(String file) {
+    int h = file.hashCode();
+    return (h ^ (h >>> 16)) & (locks.length - 1);
+  }
+
+  public int getStripes() {
+    return locks.length;
+  }
+
+  public long getAcquisitions() {
+    return acquisitions.sum();
+  }
+
+  /**
+   * Number of acquisitions where the lock was held by another thread.
+   */
+  public long getContendedAcquisitions() {
+    return contendedAcquisitions.sum();
+  }
+
+  /**
+   * Cumulated time spent waiting for contended locks.
+   */
+  public long getWaitTime(TimeUnit unit) {
+    return unit.convert(waitNanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d acquisition(s) on %d stripe(s), %d contended, %d ms waited", getAcquisitions(), getStripes(), getContendedAcquisitions(),
+      getWaitTime(TimeUnit.MILLISECONDS));
+  }
+}
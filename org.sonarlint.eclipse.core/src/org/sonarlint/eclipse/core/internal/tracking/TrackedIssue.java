@@ -0,0 +1,194 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+
+/**
+ * Compact and immutable state of a tracked issue, as kept in the {@link IssueTrackerCache}.
+ * It holds only the tracked fields, so that the engine issue and its input file can be garbage collected once tracking is done.
+ * Strings repeated between issues are interned, and nullable numbers are stored as primitives with presence flags.
+ */
+public final class TrackedIssue implements Trackable {
+
+  private static final int HAS_LINE = 1;
+  private static final int HAS_TEXT_RANGE_HASH = 1 << 1;
+  private static final int HAS_LINE_HASH = 1 << 2;
+  private static final int HAS_CREATION_DATE = 1 << 3;
+  private static final int HAS_TEXT_RANGE = 1 << 4;
+  private static final int RESOLVED = 1 << 5;
+
+  /**
+   * Value of text range fields that are null
+   */
+  private static final int NO_VALUE = Integer.MIN_VALUE;
+
+  private final String ruleKey;
+  private final String ruleName;
+  private final String severity;
+  private final String message;
+  private final String serverIssueKey;
+  private final String assignee;
+  private final int line;
+  private final int textRangeHash;
+  private final int lineHash;
+  private final int startLine;
+  private final int startLineOffset;
+  private final int endLine;
+  private final int endLineOffset;
+  private final long creationDate;
+  private final byte flags;
+
+  private TrackedIssue(Trackable trackable) {
+    this.ruleKey = intern(trackable.getRuleKey());
+    this.ruleName = intern(trackable.getRuleName());
+    this.severity = intern(trackable.getSeverity());
+    this.message = intern(trackable.getMessage());
+    this.serverIssueKey = trackable.getServerIssueKey();
+    this.assignee = intern(trackable.getAssignee());
+
+    int f = 0;
+    Integer l = trackable.getLine();
+    this.line = l != null ? l : 0;
+    f |= l != null ? HAS_LINE : 0;
+    Integer rangeHash = trackable.getTextRangeHash();
+    this.textRangeHash = rangeHash != null ? rangeHash : 0;
+    f |= rangeHash != null ? HAS_TEXT_RANGE_HASH : 0;
+    Integer lHash = trackable.getLineHash();
+    this.lineHash = lHash != null ? lHash : 0;
+    f |= lHash != null ? HAS_LINE_HASH : 0;
+    Long date = trackable.getCreationDate();
+    this.creationDate = date != null ? date : 0L;
+    f |= date != null ? HAS_CREATION_DATE : 0;
+    f |= trackable.isResolved() ? RESOLVED : 0;
+
+    TextRange textRange = trackable.getTextRange();
+    if (textRange != null) {
+      f |= HAS_TEXT_RANGE;
+      this.startLine = toInt(textRange.getStartLine());
+      this.startLineOffset = toInt(textRange.getStartLineOffset());
+      this.endLine = toInt(textRange.getEndLine());
+      this.endLineOffset = toInt(textRange.getEndLineOffset());
+    } else {
+      this.startLine = NO_VALUE;
+      this.startLineOffset = NO_VALUE;
+      this.endLine = NO_VALUE;
+      this.endLineOffset = NO_VALUE;
+    }
+    this.flags = (byte) f;
+  }
+
+  /**
+   * @return the given trackable if it is already a {@link TrackedIssue}
+   */
+  public static TrackedIssue of(Trackable trackable) {
+    if (trackable instanceof TrackedIssue) {
+      return (TrackedIssue) trackable;
+    }
+    return new TrackedIssue(trackable);
+  }
+
+  @CheckForNull
+  private static String intern(@Nullable String value) {
+    return value != null ? value.intern() : null;
+  }
+
+  private static int toInt(@Nullable Integer value) {
+    return value != null ? value : NO_VALUE;
+  }
+
+  @CheckForNull
+  private static Integer toInteger(int value) {
+    return value != NO_VALUE ? value : null;
+  }
+
+  private boolean has(int flag) {
+    return (flags & flag) != 0;
+  }
+
+  @Override
+  public Integer getLine() {
+    return has(HAS_LINE) ? line : null;
+  }
+
+  @Override
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public Integer getTextRangeHash() {
+    return has(HAS_TEXT_RANGE_HASH) ? textRangeHash : null;
+  }
+
+  @Override
+  public Integer getLineHash() {
+    return has(HAS_LINE_HASH) ? lineHash : null;
+  }
+
+  @Override
+  public String getRuleKey() {
+    return ruleKey;
+  }
+
+  @Override
+  public String getRuleName() {
+    return ruleName;
+  }
+
+  @Override
+  public Long getCreationDate() {
+    return has(HAS_CREATION_DATE) ? creationDate : null;
+  }
+
+  @Override
+  public String getServerIssueKey() {
+    return serverIssueKey;
+  }
+
+  @Override
+  public boolean isResolved() {
+    return has(RESOLVED);
+  }
+
+  @Override
+  public String getAssignee() {
+    return assignee;
+  }
+
+  @Override
+  public String getSeverity() {
+    return severity;
+  }
+
+  /**
+   * A new instance is returned on each call, it is only used to create markers.
+   */
+  @Override
+  public TextRange getTextRange() {
+    if (!has(HAS_TEXT_RANGE)) {
+      return null;
+    }
+    return new TextRange(toInteger(startLine), toInteger(startLineOffset), toInteger(endLine), toInteger(endLineOffset));
+  }
+
+}
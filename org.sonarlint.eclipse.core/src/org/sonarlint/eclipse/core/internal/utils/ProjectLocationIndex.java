@@ -0,0 +1,138 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Trie of project locations, by path segment, to find projects containing a given location in O(path depth).
+ * The trie is immutable once built, so it can be read concurrently. It is rebuilt lazily after any project is added, removed,
+ * opened, closed or moved.
+ */
+public class ProjectLocationIndex implements IResourceChangeListener {
+
+  private final Supplier<IProject[]> projects;
+  private volatile Node root;
+
+  public ProjectLocationIndex() {
+    this(() -> ResourcesPlugin.getWorkspace().getRoot().getProjects(IContainer.INCLUDE_HIDDEN));
+  }
+
+  /**
+   * @param projects all projects of the workspace, called on each rebuild
+   */
+  public ProjectLocationIndex(Supplier<IProject[]> projects) {
+    this.projects = projects;
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private final List<IProject> projects = new ArrayList<>(1);
+  }
+
+  /**
+   * @return projects whose location is a prefix of the given location, the most specific first
+   */
+  public List<IProject> findProjectsContaining(IPath location) {
+    Node current = getRoot().children.get(deviceKey(location));
+    if (current == null) {
+      return Collections.emptyList();
+    }
+    List<IProject> result = new ArrayList<>();
+    result.addAll(current.projects);
+    for (String segment : location.segments()) {
+      current = current.children.get(segment);
+      if (current == null) {
+        break;
+      }
+      result.addAll(0, current.projects);
+    }
+    return result;
+  }
+
+  private Node getRoot() {
+    Node result = root;
+    return result != null ? result : buildIfNeeded();
+  }
+
+  private synchronized Node buildIfNeeded() {
+    if (root == null) {
+      root = build();
+    }
+    return root;
+  }
+
+  private Node build() {
+    Node newRoot = new Node();
+    for (IProject project : projects.get()) {
+      IPath projectLocation = project.getLocation();
+      if (projectLocation == null) {
+        continue;
+      }
+      Node current = newRoot.children.computeIfAbsent(deviceKey(projectLocation), k -> new Node());
+      for (String segment : projectLocation.segments()) {
+        current = current.children.computeIfAbsent(segment, k -> new Node());
+      }
+      current.projects.add(project);
+    }
+    return newRoot;
+  }
+
+  private static String deviceKey(IPath location) {
+    String device = location.getDevice();
+    return device != null ? device.toUpperCase(Locale.ENGLISH) : "";
+  }
+
+  /**
+   * Synchronized so that a trie being built from an outdated workspace state is discarded
+   */
+  public synchronized void invalidate() {
+    root = null;
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    if (event.getType() != IResourceChangeEvent.POST_CHANGE) {
+      return;
+    }
+    for (IResourceDelta delta : event.getDelta().getAffectedChildren()) {
+      if (delta.getResource().getType() == IResource.PROJECT && (delta.getKind() != IResourceDelta.CHANGED
+        || (delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO | IResourceDelta.DESCRIPTION)) != 0)) {
+        invalidate();
+        return;
+      }
+    }
+  }
+
+}
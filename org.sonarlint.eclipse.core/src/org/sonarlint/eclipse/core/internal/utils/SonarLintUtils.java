@@ -26,11 +26,11 @@ import java.util.Map;
 import org.eclipse.core.internal.localstore.FileSystemResourceManager;
 import org.eclipse.core.internal.resources.ICoreConstants;
 import org.eclipse.core.internal.resources.Resource;
-import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 
 public class SonarLintUtils {
 
@@ -68,28 +68,22 @@ public class SonarLintUtils {
   }
 
   /**
-   * Copied from {@link FileSystemResourceManager} of Oxygen to support older Eclipse versions
+   * Adapted from {@link FileSystemResourceManager} of Oxygen to support older Eclipse versions. Candidate projects are
+   * taken from {@link ProjectLocationIndex}, most specific first, instead of iterating over all projects of the workspace.
    */
   private static IFile resourceForLocation(IPath location) {
-    int resultProjectPathSegments = 0;
-    IFile result = null;
-    IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
-    for (int i = 0; i < projects.length; i++) {
-      IProject project = projects[i];
+    for (IProject project : SonarLintCorePlugin.getDefault().getProjectLocationIndex().findProjectsContaining(location)) {
       IPath projectLocation = project.getLocation();
+      // Double check in case the index is not yet aware of a project change
       if (projectLocation != null && projectLocation.isPrefixOf(location)) {
-        int segmentsToRemove = projectLocation.segmentCount();
-        if (segmentsToRemove > resultProjectPathSegments) {
-          IPath path = project.getFullPath().append(location.removeFirstSegments(segmentsToRemove));
-          IFile resource = resourceFor(path);
-          if (resource != null && !((Resource) resource).isFiltered()) {
-            resultProjectPathSegments = segmentsToRemove;
-            result = resource;
-          }
+        IPath path = project.getFullPath().append(location.removeFirstSegments(projectLocation.segmentCount()));
+        IFile resource = resourceFor(path);
+        if (resource != null && !((Resource) resource).isFiltered()) {
+          return resource;
         }
       }
     }
-    return result;
+    return null;
   }
 
   private static IFile resourceFor(IPath path) {
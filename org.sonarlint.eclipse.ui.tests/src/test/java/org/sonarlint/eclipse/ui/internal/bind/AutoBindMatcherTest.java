@@ -0,0 +1,168 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.bind;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Test;
+import org.sonarlint.eclipse.ui.internal.bind.AutoBindMatcher.MatchStatus;
+import org.sonarlint.eclipse.ui.internal.bind.AutoBindMatcher.MavenCoordinates;
+import org.sonarlint.eclipse.ui.internal.bind.AutoBindMatcher.Result;
+import org.sonarsource.sonarlint.core.client.api.connected.RemoteModule;
+import org.sonarsource.sonarlint.core.client.api.util.TextSearchIndex;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AutoBindMatcherTest {
+
+  @SuppressWarnings("unchecked")
+  private final TextSearchIndex<RemoteModule> moduleIndex = mock(TextSearchIndex.class);
+  private final AutoBindMatcher matcher = new AutoBindMatcher(moduleIndex);
+
+  @Test
+  public void should_score_maven_key_first() {
+    MavenCoordinates coordinates = new MavenCoordinates("org.foo", "my-lib");
+
+    assertThat(AutoBindMatcher.score(module("org.foo:my-lib", "Whatever"), "my-lib", coordinates)).isEqualTo(100);
+    assertThat(AutoBindMatcher.score(module("my-lib", "My Lib"), "my-lib", coordinates)).isEqualTo(80);
+    // The group is needed to match the key of a Maven module
+    assertThat(AutoBindMatcher.score(module("org.foo:my-lib", "Whatever"), "my-lib", new MavenCoordinates(null, "my-lib"))).isLessThan(100);
+  }
+
+  @Test
+  public void should_score_exact_key_then_exact_name_ignoring_case() {
+    assertThat(AutoBindMatcher.score(module("MyProject", "Other"), "myproject", null)).isEqualTo(80);
+    assertThat(AutoBindMatcher.score(module("org:other", "My Project"), "my project", null)).isEqualTo(60);
+    // Artifact id of the project is also used
+    assertThat(AutoBindMatcher.score(module("org:other", "my-lib"), "project", new MavenCoordinates(null, "my-lib"))).isEqualTo(60);
+  }
+
+  @Test
+  public void should_score_similarity_of_words() {
+    // 2 common words out of 4
+    assertThat(AutoBindMatcher.score(module("org:sonarlint-eclipse", "SonarLint Eclipse"), "sonarlint-eclipse-ui", null)).isEqualTo(20);
+    // 1 common word out of 3
+    assertThat(AutoBindMatcher.score(module("sonarlint-core", "SonarLint Core"), "sonarlint-eclipse", null)).isEqualTo(13);
+    assertThat(AutoBindMatcher.score(module("foo", "Foo"), "bar", null)).isZero();
+  }
+
+  @Test
+  public void should_ignore_candidates_below_threshold() {
+    indexed(module("sonarlint-core", "SonarLint Core"));
+
+    Result result = matcher.match("sonarlint-eclipse", null);
+
+    assertThat(result.getStatus()).isEqualTo(MatchStatus.NOT_FOUND);
+    assertThat(result.getCandidates()).isEmpty();
+  }
+
+  @Test
+  public void should_match_candidate_at_threshold() {
+    RemoteModule module = module("org:sonarlint-eclipse", "SonarLint Eclipse");
+    indexed(module, module("sonarlint-core", "SonarLint Core"));
+
+    Result result = matcher.match("sonarlint-eclipse-ui", null);
+
+    assertThat(result.getStatus()).isEqualTo(MatchStatus.MATCHED);
+    assertThat(result.getCandidates()).containsExactly(module);
+  }
+
+  @Test
+  public void should_match_best_candidate() {
+    RemoteModule byName = module("org:foo", "Foo");
+    RemoteModule byKey = module("foo", "Other");
+    indexed(byName, byKey);
+
+    Result result = matcher.match("foo", null);
+
+    assertThat(result.getStatus()).isEqualTo(MatchStatus.MATCHED);
+    assertThat(result.getCandidates()).containsExactly(byKey);
+  }
+
+  @Test
+  public void should_be_ambiguous_when_best_candidates_are_tied() {
+    RemoteModule first = module("org1:foo-app", "Foo");
+    RemoteModule second = module("org2:foo-app", "Foo");
+    indexed(first, second, module("bar", "Bar"));
+
+    Result result = matcher.match("foo", null);
+
+    assertThat(result.getStatus()).isEqualTo(MatchStatus.AMBIGUOUS);
+    assertThat(result.getCandidates()).containsExactly(first, second);
+  }
+
+  @Test
+  public void should_match_maven_module_found_by_artifact_id() throws Exception {
+    RemoteModule mavenModule = module("org.foo:my-lib", "My Library");
+    RemoteModule sameName = module("eclipse-name", "Other");
+    when(moduleIndex.search(anyString())).thenReturn(Collections.emptyList());
+    when(moduleIndex.search("eclipse-name")).thenReturn(Collections.singletonList(sameName));
+    when(moduleIndex.search("my-lib")).thenReturn(Collections.singletonList(mavenModule));
+    IProject project = project("eclipse-name", "<project><parent><groupId>org.foo</groupId></parent><artifactId>my-lib</artifactId></project>");
+
+    Map<IProject, Result> results = matcher.match(Collections.singletonList(project), new NullProgressMonitor());
+
+    assertThat(results.get(project).getStatus()).isEqualTo(MatchStatus.MATCHED);
+    assertThat(results.get(project).getCandidates()).containsExactly(mavenModule);
+  }
+
+  @Test
+  public void should_ignore_unresolved_maven_properties() throws Exception {
+    RemoteModule module = module("org.foo:my-lib", "My Library");
+    indexed(module);
+    IProject project = project("my-project", "<project><groupId>${group}</groupId><artifactId>my-lib</artifactId></project>");
+
+    Map<IProject, Result> results = matcher.match(Collections.singletonList(project), new NullProgressMonitor());
+
+    // Without the group, the key of the module can't be matched
+    assertThat(results.get(project).getStatus()).isEqualTo(MatchStatus.NOT_FOUND);
+  }
+
+  private void indexed(RemoteModule... modules) {
+    when(moduleIndex.search(anyString())).thenReturn(Arrays.asList(modules));
+  }
+
+  private static RemoteModule module(String key, String name) {
+    RemoteModule module = mock(RemoteModule.class);
+    when(module.getKey()).thenReturn(key);
+    when(module.getName()).thenReturn(name);
+    return module;
+  }
+
+  private static IProject project(String name, String pom) throws Exception {
+    IProject project = mock(IProject.class);
+    when(project.getName()).thenReturn(name);
+    IFile file = mock(IFile.class);
+    when(file.exists()).thenReturn(true);
+    when(file.getContents(anyBoolean())).thenReturn(new ByteArrayInputStream(pom.getBytes(UTF_8)));
+    when(project.getFile("pom.xml")).thenReturn(file);
+    return project;
+  }
+}
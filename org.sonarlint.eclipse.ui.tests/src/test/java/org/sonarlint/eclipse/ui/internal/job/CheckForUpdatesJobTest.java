@@ -0,0 +1,173 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.job;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+import org.sonarlint.eclipse.core.internal.server.IServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CheckForUpdatesJobTest {
+
+  private final List<List<IServer>> notifications = new CopyOnWriteArrayList<>();
+  private final List<CheckForUpdatesJob> jobs = new ArrayList<>();
+
+  @After
+  public void cancelRescheduledJobs() {
+    jobs.forEach(CheckForUpdatesJob::cancel);
+  }
+
+  @Test
+  public void should_check_servers_concurrently_and_notify_once() {
+    CountDownLatch started = new CountDownLatch(3);
+    List<Boolean> concurrent = new CopyOnWriteArrayList<>();
+    Answer<Void> waitForOthers = invocation -> {
+      started.countDown();
+      concurrent.add(started.await(5, TimeUnit.SECONDS));
+      return null;
+    };
+    IServer server1 = server("server1", true, waitForOthers);
+    IServer server2 = server("server2", false, waitForOthers);
+    IServer server3 = server("server3", true, waitForOthers);
+    IServer outdated = server("outdated", true, invocation -> null);
+    when(outdated.isStorageUpdated()).thenReturn(false);
+
+    IStatus status = run(newJob(5000, server1, server2, outdated, server3), new NullProgressMonitor());
+
+    assertThat(status.isOK()).isTrue();
+    assertThat(concurrent).containsExactly(true, true, true);
+    assertThat(notifications).containsExactly(Arrays.asList(server1, server3));
+    verify(outdated, never()).checkForUpdates(any());
+  }
+
+  @Test
+  public void should_not_notify_without_updates() {
+    IServer server = server("server", false, invocation -> null);
+
+    run(newJob(5000, server), new NullProgressMonitor());
+
+    assertThat(notifications).isEmpty();
+  }
+
+  @Test
+  public void should_leave_out_server_that_failed() {
+    IServer failing = server("failing", true, invocation -> {
+      throw new IllegalStateException("Unreachable");
+    });
+    IServer server = server("server", true, invocation -> null);
+
+    IStatus status = run(newJob(5000, failing, server), new NullProgressMonitor());
+
+    assertThat(status.isOK()).isTrue();
+    assertThat(notifications).containsExactly(Collections.singletonList(server));
+  }
+
+  @Test
+  public void should_cancel_check_of_server_after_its_timeout() {
+    List<IProgressMonitor> slowMonitors = new CopyOnWriteArrayList<>();
+    IServer slow = server("slow", true, invocation -> {
+      IProgressMonitor monitor = invocation.getArgument(0);
+      slowMonitors.add(monitor);
+      long start = System.currentTimeMillis();
+      while (!monitor.isCanceled() && System.currentTimeMillis() - start < 10_000) {
+        Thread.sleep(10);
+      }
+      return null;
+    });
+    IServer fast = server("fast", true, invocation -> null);
+
+    long start = System.currentTimeMillis();
+    IStatus status = run(newJob(300, slow, fast), new NullProgressMonitor());
+
+    assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+    assertThat(status.isOK()).isTrue();
+    assertThat(notifications).containsExactly(Collections.singletonList(fast));
+    assertThat(slowMonitors).hasSize(1);
+    assertThat(slowMonitors.get(0).isCanceled()).isTrue();
+    verify(slow, never()).hasUpdates();
+  }
+
+  @Test
+  public void should_start_timeout_of_each_server_when_its_check_starts() {
+    // More servers than checked concurrently: the last one waits for a slot, and completes after the timeout counted from the
+    // start of the job
+    List<IServer> servers = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      servers.add(server("server" + i, true, invocation -> {
+        Thread.sleep(300);
+        return null;
+      }));
+    }
+
+    IStatus status = run(newJob(500, servers.toArray(new IServer[0])), new NullProgressMonitor());
+
+    assertThat(status.isOK()).isTrue();
+    assertThat(notifications).containsExactly(servers);
+  }
+
+  @Test
+  public void should_stop_when_canceled() {
+    IServer server = server("server", true, invocation -> null);
+    IProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+
+    IStatus status = run(newJob(5000, server), monitor);
+
+    assertThat(status.getSeverity()).isEqualTo(IStatus.CANCEL);
+    assertThat(notifications).isEmpty();
+  }
+
+  private CheckForUpdatesJob newJob(long serverCheckTimeoutMs, IServer... servers) {
+    CheckForUpdatesJob job = new CheckForUpdatesJob(() -> Arrays.asList(servers), notifications::add, serverCheckTimeoutMs);
+    jobs.add(job);
+    return job;
+  }
+
+  private static IStatus run(CheckForUpdatesJob job, IProgressMonitor monitor) {
+    return job.run(monitor);
+  }
+
+  private static IServer server(String id, boolean hasUpdates, Answer<Void> check) {
+    IServer server = mock(IServer.class);
+    when(server.getId()).thenReturn(id);
+    when(server.isStorageUpdated()).thenReturn(true);
+    when(server.hasUpdates()).thenReturn(hasUpdates);
+    doAnswer(check).when(server).checkForUpdates(any());
+    return server;
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.views.issues;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+import org.sonarlint.eclipse.ui.internal.views.issues.IssueRowsModel.IssueGroup;
+import org.sonarlint.eclipse.ui.internal.views.issues.IssueRowsModel.MarkerChange;
+import org.sonarlint.eclipse.ui.internal.views.issues.IssueRowsModel.Snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IssueRowsModelTest {
+
+  private final IssueRowsModel model = new IssueRowsModel("marker.type");
+
+  @Test
+  public void should_sort_rows_by_column() throws CoreException {
+    IMarker minor = marker(1, "MINOR", "b message", "B.java", 3);
+    IMarker blocker = marker(2, "BLOCKER", "z message", "A.java", 1);
+    IMarker major = marker(3, "MAJOR", "a message", "C.java", 2);
+    model.apply(Arrays.asList(add(minor), add(blocker), add(major)));
+
+    assertThat(markers(model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), false).getRoots()))
+      .containsExactly(blocker, major, minor);
+    assertThat(markers(model.snapshot(IssueColumn.DESCRIPTION.getComparator(false), false).getRoots()))
+      .containsExactly(minor, major, blocker);
+    assertThat(markers(model.snapshot(IssueColumn.RESOURCE.getComparator(true), false).getRoots()))
+      .containsExactly(blocker, minor, major);
+  }
+
+  @Test
+  public void should_break_ties_by_marker_id() throws CoreException {
+    IMarker second = marker(2, "MAJOR", "same", "A.java", 1);
+    IMarker first = marker(1, "MAJOR", "same", "A.java", 1);
+    model.apply(Arrays.asList(add(second), add(first)));
+
+    assertThat(markers(model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), false).getRoots()))
+      .containsExactly(first, second);
+  }
+
+  @Test
+  public void should_group_rows_by_severity() throws CoreException {
+    IMarker major1 = marker(1, "MAJOR", "b", "A.java", 1);
+    IMarker info = marker(2, "INFO", "a", "A.java", 2);
+    IMarker major2 = marker(3, "MAJOR", "a", "A.java", 3);
+    IMarker unknown = marker(4, null, "c", "A.java", 4);
+    model.apply(Arrays.asList(add(major1), add(info), add(major2), add(unknown)));
+
+    Snapshot snapshot = model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), true);
+
+    assertThat(snapshot.getIssueCount()).isEqualTo(4);
+    Object[] roots = snapshot.getRoots();
+    assertThat(roots).hasSize(3);
+    assertThat(Arrays.stream(roots).map(g -> ((IssueGroup) g).getSeverity()).collect(Collectors.toList())).containsExactly(2, 4, IssueRow.UNKNOWN_SEVERITY);
+    IssueGroup majorGroup = (IssueGroup) roots[0];
+    assertThat(markers(snapshot.getChildren(majorGroup))).containsExactly(major2, major1);
+    assertThat(snapshot.getLabel(majorGroup)).isEqualTo("Major (2)");
+    assertThat(snapshot.getLabel((IssueGroup) roots[2])).isEqualTo("Unknown (1)");
+    IssueRow row = (IssueRow) snapshot.getChildren(majorGroup)[0];
+    assertThat(snapshot.getGroup(row)).isSameAs(majorGroup);
+    assertThat(snapshot.getChildren(row)).isEmpty();
+  }
+
+  @Test
+  public void should_not_group_flat_rows() throws CoreException {
+    model.apply(Collections.singletonList(add(marker(1, "MAJOR", "a", "A.java", 1))));
+
+    Snapshot snapshot = model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), false);
+
+    IssueRow row = (IssueRow) snapshot.getRoots()[0];
+    assertThat(snapshot.getGroup(row)).isNull();
+  }
+
+  @Test
+  public void should_reuse_group_nodes_between_snapshots() throws CoreException {
+    model.apply(Collections.singletonList(add(marker(1, "MAJOR", "a", "A.java", 1))));
+    Snapshot first = model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), true);
+
+    model.apply(Arrays.asList(add(marker(2, "MAJOR", "b", "A.java", 2)), add(marker(3, "MINOR", "c", "A.java", 3))));
+    Snapshot second = model.snapshot(IssueColumn.RULE_KEY.getComparator(true), true);
+
+    assertThat(second.getRoots()[0]).isSameAs(first.getRoots()[0]);
+    // Previous snapshot is left unchanged, the UI may still be reading it
+    assertThat(first.getChildren(first.getRoots()[0])).hasSize(1);
+    assertThat(first.getLabel((IssueGroup) first.getRoots()[0])).isEqualTo("Major (1)");
+    assertThat(second.getChildren(second.getRoots()[0])).hasSize(2);
+    assertThat(second.getLabel((IssueGroup) second.getRoots()[0])).isEqualTo("Major (2)");
+  }
+
+  @Test
+  public void should_apply_changed_and_removed_markers() throws CoreException {
+    IMarker kept = marker(1, "MAJOR", "kept", "A.java", 1);
+    IMarker removed = marker(2, "MAJOR", "removed", "A.java", 2);
+    IMarker changed = marker(3, "MAJOR", "before", "A.java", 3);
+    model.apply(Arrays.asList(add(kept), add(removed), add(changed)));
+    model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), false);
+
+    IMarker deleted = mock(IMarker.class);
+    when(deleted.exists()).thenReturn(false);
+    IMarker updated = marker(3, "BLOCKER", "after", "A.java", 3);
+    model.apply(Arrays.asList(new MarkerChange(2, null), new MarkerChange(1, deleted), add(updated)));
+    Snapshot snapshot = model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), false);
+
+    assertThat(snapshot.getIssueCount()).isEqualTo(1);
+    IssueRow row = (IssueRow) snapshot.getRoots()[0];
+    assertThat(row.getMarker()).isSameAs(updated);
+    assertThat(row.getMessage()).isEqualTo("after");
+    assertThat(row.getSeverity()).isZero();
+  }
+
+  @Test
+  public void should_read_marker_attributes_once() throws CoreException {
+    IMarker marker = marker(1, "MAJOR", "a", "A.java", 1);
+    model.apply(Collections.singletonList(add(marker)));
+
+    for (IssueColumn column : IssueColumn.values()) {
+      model.snapshot(column.getComparator(true), true);
+      model.snapshot(column.getComparator(false), false);
+    }
+
+    verify(marker, times(1)).getAttributes();
+  }
+
+  @Test
+  public void should_forget_rows_on_reset() throws CoreException {
+    model.apply(Collections.singletonList(add(marker(1, "MAJOR", "a", "A.java", 1))));
+    model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), true);
+
+    model.reset();
+
+    assertThat(model.isLoaded()).isFalse();
+    Snapshot snapshot = model.snapshot(IssueColumn.DESCRIPTION.getComparator(true), true);
+    assertThat(snapshot.getRoots()).isEmpty();
+    assertThat(snapshot.getIssueCount()).isZero();
+  }
+
+  private static MarkerChange add(IMarker marker) {
+    return new MarkerChange(marker.getId(), marker);
+  }
+
+  private static IMarker[] markers(Object[] rows) {
+    return Arrays.stream(rows).map(r -> ((IssueRow) r).getMarker()).toArray(IMarker[]::new);
+  }
+
+  private static IMarker marker(long id, String severity, String message, String resourceName, int line) throws CoreException {
+    IResource resource = mock(IResource.class);
+    when(resource.getName()).thenReturn(resourceName);
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put(MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, severity);
+    attributes.put(IMarker.MESSAGE, message);
+    attributes.put(IMarker.LINE_NUMBER, line);
+    attributes.put(MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, "squid:S" + id);
+    IMarker marker = mock(IMarker.class);
+    when(marker.getId()).thenReturn(id);
+    when(marker.exists()).thenReturn(true);
+    when(marker.getResource()).thenReturn(resource);
+    when(marker.getAttributes()).thenReturn(attributes);
+    return marker;
+  }
+}
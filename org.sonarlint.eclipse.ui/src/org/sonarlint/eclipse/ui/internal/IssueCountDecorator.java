@@ -0,0 +1,105 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.IDecoration;
+import org.eclipse.jface.viewers.ILightweightLabelDecorator;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.swt.widgets.Display;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.markers.IssueCounts;
+import org.sonarlint.eclipse.core.internal.markers.IssueIndex;
+import org.sonarlint.eclipse.core.internal.markers.IssueIndexListener;
+
+/**
+ * Shows the number of on-the-fly issues of projects and folders. Counts are read from the {@link IssueIndex}, markers are never searched.
+ */
+public class IssueCountDecorator extends LabelProvider implements ILightweightLabelDecorator {
+
+  public static final String ID = "org.sonarlint.eclipse.ui.issueCountDecorator";
+
+  /**
+   * Analysis of a project updates many files, labels are refreshed once for all of them
+   */
+  private static final long REFRESH_DELAY_MS = 500;
+
+  private final Set<IResource> changedContainers = ConcurrentHashMap.newKeySet();
+  private final IssueIndexListener indexListener = this::issuesChanged;
+  private final Job refreshJob = new Job("Refresh SonarLint issue counts") {
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      List<IResource> resources = new ArrayList<>(changedContainers);
+      changedContainers.removeAll(resources);
+      if (!resources.isEmpty()) {
+        LabelProviderChangedEvent event = new LabelProviderChangedEvent(IssueCountDecorator.this, resources.toArray());
+        Display.getDefault().asyncExec(() -> fireLabelProviderChanged(event));
+      }
+      return Status.OK_STATUS;
+    }
+  };
+
+  public IssueCountDecorator() {
+    refreshJob.setSystem(true);
+    refreshJob.setPriority(Job.DECORATE);
+    SonarLintCorePlugin.getDefault().getIssueIndex().addListener(indexListener);
+  }
+
+  private void issuesChanged(Collection<IResource> resources) {
+    for (IResource resource : resources) {
+      if (resource.getType() == IResource.FOLDER || resource.getType() == IResource.PROJECT) {
+        changedContainers.add(resource);
+      }
+    }
+    refreshJob.schedule(REFRESH_DELAY_MS);
+  }
+
+  @Override
+  public void decorate(Object element, IDecoration decoration) {
+    // Enabled for containers only, elements adapting to them are adapted by the decorator manager
+    if (!(element instanceof IContainer) || !((IContainer) element).isAccessible()) {
+      return;
+    }
+    IContainer container = (IContainer) element;
+    IssueCounts counts = SonarLintCorePlugin.getDefault().getIssueIndex().getCounts(container);
+    if (!counts.isEmpty()) {
+      decoration.addSuffix(counts.getTotal() == 1 ? " [1 issue]" : (" [" + counts.getTotal() + " issues]"));
+    }
+  }
+
+  @Override
+  public void dispose() {
+    SonarLintCorePlugin.getDefault().getIssueIndex().removeListener(indexListener);
+    refreshJob.cancel();
+    super.dispose();
+  }
+
+}
@@ -22,7 +22,6 @@ package org.sonarlint.eclipse.ui.internal;
 import java.util.Collections;
 import javax.annotation.CheckForNull;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -47,7 +46,7 @@ import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectJob;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest;
 import org.sonarlint.eclipse.core.internal.jobs.LogListener;
-import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+import org.sonarlint.eclipse.core.internal.jobs.UpdateMarkerSeverityJob;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProject;
 import org.sonarlint.eclipse.core.internal.server.IServer;
 import org.sonarlint.eclipse.core.internal.server.ServersManager;
@@ -87,6 +86,11 @@ public class SonarLintUiPlugin extends AbstractUIPlugin {
     public void debug(String msg, boolean fromAnalyzer) {
       getSonarConsole().debug(msg, fromAnalyzer);
     }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return getSonarConsole().isDebugEnabled();
+    }
   }
 
   @Override
@@ -100,11 +104,7 @@ public class SonarLintUiPlugin extends AbstractUIPlugin {
 
     prefListener = event -> {
       if (event.getProperty().equals(PreferencesUtils.PREF_MARKER_SEVERITY)) {
-        try {
-          MarkerUtils.updateAllSonarMarkerSeverity();
-        } catch (CoreException e) {
-          SonarLintLogger.get().error("Unable to update marker severity", e);
-        }
+        UpdateMarkerSeverityJob.cancelAndSchedule();
       }
     };
 
@@ -177,6 +177,8 @@ public class SonarLintUiPlugin extends AbstractUIPlugin {
     store.setDefault(PreferencesUtils.PREF_MARKER_SEVERITY, PreferencesUtils.PREF_MARKER_SEVERITY_DEFAULT);
     store.setDefault(PreferencesUtils.PREF_EXTRA_ARGS, PreferencesUtils.PREF_EXTRA_ARGS_DEFAULT);
     store.setDefault(PreferencesUtils.PREF_TEST_FILE_REGEXPS, PreferencesUtils.PREF_TEST_FILE_REGEXPS_DEFAULT);
+    store.setDefault(PreferencesUtils.PREF_CHANGESET_REFRESH_MAX_AGE, PreferencesUtils.PREF_CHANGESET_REFRESH_MAX_AGE_DEFAULT);
+    store.setDefault(PreferencesUtils.PREF_SHUTDOWN_FLUSH_TIMEOUT, PreferencesUtils.PREF_SHUTDOWN_FLUSH_TIMEOUT_DEFAULT);
   }
 
   private static class RegisterSonarLintPartListenerJob extends UIJob {
@@ -0,0 +1,243 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.bind;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.connected.RemoteModule;
+import org.sonarsource.sonarlint.core.client.api.util.TextSearchIndex;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Find the best remote module for each Eclipse project. Candidates are scored using key/name similarity, and Maven
+ * coordinates when the project has a pom.xml. Projects are processed in parallel.
+ */
+public class AutoBindMatcher {
+
+  static final int MIN_SCORE = 20;
+
+  private static final int SCORE_MAVEN_KEY = 100;
+  private static final int SCORE_EXACT_KEY = 80;
+  private static final int SCORE_EXACT_NAME = 60;
+  private static final int SCORE_SIMILAR = 40;
+
+  private final TextSearchIndex<RemoteModule> moduleIndex;
+
+  public AutoBindMatcher(TextSearchIndex<RemoteModule> moduleIndex) {
+    this.moduleIndex = moduleIndex;
+  }
+
+  public enum MatchStatus {
+    MATCHED, NOT_FOUND, AMBIGUOUS
+  }
+
+  public static class Result {
+    private final MatchStatus status;
+    private final List<RemoteModule> candidates;
+
+    Result(MatchStatus status, List<RemoteModule> candidates) {
+      this.status = status;
+      this.candidates = candidates;
+    }
+
+    public MatchStatus getStatus() {
+      return status;
+    }
+
+    /**
+     * Best candidates, the first one being the match when status is {@link MatchStatus#MATCHED}
+     */
+    public List<RemoteModule> getCandidates() {
+      return candidates;
+    }
+  }
+
+  /**
+   * @throws OperationCanceledException if the monitor is canceled
+   */
+  public Map<IProject, Result> match(List<IProject> projects, IProgressMonitor monitor) {
+    SubMonitor subMonitor = SubMonitor.convert(monitor, "Searching matching SonarQube projects", projects.size());
+    Map<IProject, Result> results = new ConcurrentHashMap<>();
+    projects.parallelStream().forEach(project -> {
+      if (monitor.isCanceled()) {
+        return;
+      }
+      results.put(project, match(project.getName(), readMavenCoordinates(project)));
+      synchronized (subMonitor) {
+        subMonitor.worked(1);
+      }
+    });
+    if (monitor.isCanceled()) {
+      throw new OperationCanceledException();
+    }
+    // Preserve order of input
+    Map<IProject, Result> orderedResults = new LinkedHashMap<>();
+    projects.forEach(p -> orderedResults.put(p, results.get(p)));
+    return orderedResults;
+  }
+
+  Result match(String projectName, @CheckForNull MavenCoordinates coordinates) {
+    Set<RemoteModule> candidates = new LinkedHashSet<>(moduleIndex.search(projectName));
+    if (coordinates != null) {
+      candidates.addAll(moduleIndex.search(coordinates.artifactId));
+    }
+    Map<RemoteModule, Integer> scores = new LinkedHashMap<>();
+    for (RemoteModule candidate : candidates) {
+      int score = score(candidate, projectName, coordinates);
+      if (score >= MIN_SCORE) {
+        scores.put(candidate, score);
+      }
+    }
+    if (scores.isEmpty()) {
+      return new Result(MatchStatus.NOT_FOUND, Collections.emptyList());
+    }
+    List<Map.Entry<RemoteModule, Integer>> sorted = scores.entrySet().stream()
+      .sorted((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()))
+      .collect(Collectors.toList());
+    int bestScore = sorted.get(0).getValue();
+    List<RemoteModule> best = sorted.stream()
+      .filter(e -> e.getValue() == bestScore)
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toList());
+    return new Result(best.size() == 1 ? MatchStatus.MATCHED : MatchStatus.AMBIGUOUS, best);
+  }
+
+  static int score(RemoteModule candidate, String projectName, @CheckForNull MavenCoordinates coordinates) {
+    String key = candidate.getKey();
+    String name = candidate.getName();
+    if (coordinates != null && coordinates.groupId != null && key.equals(coordinates.groupId + ":" + coordinates.artifactId)) {
+      return SCORE_MAVEN_KEY;
+    }
+    if (key.equalsIgnoreCase(projectName) || (coordinates != null && key.equalsIgnoreCase(coordinates.artifactId))) {
+      return SCORE_EXACT_KEY;
+    }
+    if (name.equalsIgnoreCase(projectName) || (coordinates != null && name.equalsIgnoreCase(coordinates.artifactId))) {
+      return SCORE_EXACT_NAME;
+    }
+    Set<String> projectTokens = tokenize(projectName);
+    if (coordinates != null) {
+      projectTokens.addAll(tokenize(coordinates.artifactId));
+    }
+    Set<String> candidateTokens = tokenize(key + " " + name);
+    return (int) (SCORE_SIMILAR * jaccard(projectTokens, candidateTokens));
+  }
+
+  private static Set<String> tokenize(String text) {
+    return Arrays.stream(text.toLowerCase(Locale.ENGLISH).split("[^\\p{Alnum}]+"))
+      .filter(t -> !t.isEmpty())
+      .collect(Collectors.toCollection(HashSet::new));
+  }
+
+  private static double jaccard(Set<String> s1, Set<String> s2) {
+    if (s1.isEmpty() || s2.isEmpty()) {
+      return 0;
+    }
+    Set<String> intersection = new HashSet<>(s1);
+    intersection.retainAll(s2);
+    Set<String> union = new HashSet<>(s1);
+    union.addAll(s2);
+    return (double) intersection.size() / union.size();
+  }
+
+  static class MavenCoordinates {
+    @CheckForNull
+    final String groupId;
+    final String artifactId;
+
+    MavenCoordinates(@CheckForNull String groupId, String artifactId) {
+      this.groupId = groupId;
+      this.artifactId = artifactId;
+    }
+  }
+
+  @CheckForNull
+  private static MavenCoordinates readMavenCoordinates(IProject project) {
+    IFile pom = project.getFile("pom.xml");
+    if (!pom.exists()) {
+      return null;
+    }
+    try (InputStream is = pom.getContents(true)) {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      DocumentBuilder builder = factory.newDocumentBuilder();
+      Document document = builder.parse(is);
+      Element root = document.getDocumentElement();
+      String artifactId = childText(root, "artifactId");
+      if (artifactId == null) {
+        return null;
+      }
+      String groupId = childText(root, "groupId");
+      if (groupId == null) {
+        Element parent = child(root, "parent");
+        groupId = parent != null ? childText(parent, "groupId") : null;
+      }
+      return new MavenCoordinates(groupId, artifactId);
+    } catch (Exception e) {
+      SonarLintLogger.get().debug("Unable to read Maven coordinates of project '" + project.getName() + "'", e);
+      return null;
+    }
+  }
+
+  @CheckForNull
+  private static Element child(Element parent, String name) {
+    NodeList children = parent.getChildNodes();
+    for (int i = 0; i < children.getLength(); i++) {
+      Node node = children.item(i);
+      if (node.getNodeType() == Node.ELEMENT_NODE && name.equals(node.getNodeName())) {
+        return (Element) node;
+      }
+    }
+    return null;
+  }
+
+  @CheckForNull
+  private static String childText(Element parent, String name) {
+    Element child = child(parent, name);
+    if (child == null) {
+      return null;
+    }
+    String text = child.getTextContent().trim();
+    // Properties are not resolved
+    return text.isEmpty() || text.contains("${") ? null : text;
+  }
+
+}
@@ -21,12 +21,15 @@ package org.sonarlint.eclipse.ui.internal.bind;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import org.eclipse.core.databinding.beans.BeanProperties;
 import org.eclipse.core.databinding.observable.list.WritableList;
 import org.eclipse.core.databinding.property.value.IValueProperty;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jface.bindings.keys.IKeyLookup;
 import org.eclipse.jface.bindings.keys.KeyLookupFactory;
 import org.eclipse.jface.databinding.viewers.ViewerSupport;
@@ -195,18 +198,60 @@ public class BindProjectsPage extends WizardPage {
   private void createAutoBindBtn(Composite btnContainer) {
     autoBindBtn = new Button(btnContainer, SWT.PUSH);
     autoBindBtn.setText("Auto bind selected projects");
-    autoBindBtn.addListener(SWT.Selection, event -> {
-      TextSearchIndex<RemoteModule> moduleIndex = selectedServer.getModuleIndex();
-      for (Object object : viewer.getCheckedElements()) {
-        ProjectBindModel bind = (ProjectBindModel) object;
-        List<RemoteModule> results = moduleIndex.search(bind.getEclipseName());
-        if (!results.isEmpty()) {
-          bind.associate(selectedServer.getId(), results.get(0).getKey());
-        } else {
-          bind.setAutoBindFailed(true);
+    autoBindBtn.addListener(SWT.Selection, event -> autoBindSelectedProjects());
+  }
+
+  private void autoBindSelectedProjects() {
+    final IServer server = selectedServer;
+    Map<IProject, ProjectBindModel> bindByProject = new LinkedHashMap<>();
+    for (Object object : viewer.getCheckedElements()) {
+      ProjectBindModel bind = (ProjectBindModel) object;
+      bindByProject.put(bind.getProject(), bind);
+    }
+    List<IProject> toBind = new ArrayList<>(bindByProject.keySet());
+    Map<IProject, AutoBindMatcher.Result> results = new LinkedHashMap<>();
+    try {
+      getContainer().run(true, true, monitor -> {
+        TextSearchIndex<RemoteModule> moduleIndex = server.getModuleIndex();
+        try {
+          results.putAll(new AutoBindMatcher(moduleIndex).match(toBind, monitor));
+        } catch (OperationCanceledException e) {
+          throw new InterruptedException();
+        }
+      });
+    } catch (InvocationTargetException ex) {
+      throw new IllegalStateException(ex);
+    } catch (InterruptedException e1) {
+      // Cancelled, don't apply partial results
+      return;
+    }
+    List<String> ambiguous = new ArrayList<>();
+    viewer.getTable().setRedraw(false);
+    try {
+      for (Map.Entry<IProject, AutoBindMatcher.Result> entry : results.entrySet()) {
+        ProjectBindModel bind = bindByProject.get(entry.getKey());
+        AutoBindMatcher.Result result = entry.getValue();
+        switch (result.getStatus()) {
+          case MATCHED:
+            bind.associate(server.getId(), result.getCandidates().get(0).getKey());
+            break;
+          case AMBIGUOUS:
+            ambiguous.add(bind.getEclipseName());
+            bind.setAutoBindFailed(true);
+            break;
+          default:
+            bind.setAutoBindFailed(true);
         }
       }
-    });
+    } finally {
+      viewer.getTable().setRedraw(true);
+    }
+    if (!ambiguous.isEmpty()) {
+      setMessage("Several SonarQube projects match the following projects, please bind them manually: " + String.join(", ", ambiguous), IMessageProvider.WARNING);
+    } else {
+      // Warning of a previous run
+      setMessage(null);
+    }
   }
 
   private void createUnassociateBtn(Composite btnContainer) {
@@ -446,7 +491,7 @@ public class BindProjectsPage extends WizardPage {
   private static void updateProjectBinding(ProjectBindModel projectBinding) {
     boolean changed = false;
     IProject project = projectBinding.getProject();
-    SonarLintProject sonarProject = SonarLintProject.getInstance(project);
+    SonarLintProject sonarProject = SonarLintProject.getWorkingCopy(project);
     String oldServerId = sonarProject.getServerId();
     if (!Objects.equals(projectBinding.getServerId(), oldServerId)) {
       sonarProject.setServerId(projectBinding.getServerId());
@@ -41,18 +41,17 @@ public class SearchEngineProvider implements IContentProposalProvider {
 
   private final WizardPage parentPage;
   private final IServer server;
-  private TextSearchIndex<RemoteModule> moduleIndex;
 
   public SearchEngineProvider(IServer server, WizardPage parentPage) {
     this.server = server;
     this.parentPage = parentPage;
   }
 
+  /**
+   * The index is cached by the server until its next storage update, so no need to keep a copy that could become outdated.
+   */
   public TextSearchIndex<RemoteModule> getModuleIndex() {
-    if (moduleIndex == null && server.isStorageUpdated()) {
-      moduleIndex = server.getModuleIndex();
-    }
-    return moduleIndex;
+    return server.getModuleIndex();
   }
 
   @Override
@@ -63,7 +62,12 @@ public class SearchEngineProvider implements IContentProposalProvider {
     }
     List<IContentProposal> list = new ArrayList<>();
     try {
-      List<RemoteModule> modules = getModuleIndex().search(contents);
+      TextSearchIndex<RemoteModule> moduleIndex = getModuleIndex();
+      long start = System.nanoTime();
+      List<RemoteModule> modules = moduleIndex.search(contents);
+      long elapsedMicros = (System.nanoTime() - start) / 1000;
+      SonarLintLogger.get().debug(() -> "Found " + modules.size() + " modules of server '" + server.getId() + "' matching '" + contents + "' in "
+        + elapsedMicros + "us");
       for (RemoteModule m : modules) {
         RemoteSonarProject prj = new RemoteSonarProject(server.getId(), m.getKey(), m.getName());
         list.add(new ContentProposal(prj.asString(), m.getName(), prj.getDescription()));
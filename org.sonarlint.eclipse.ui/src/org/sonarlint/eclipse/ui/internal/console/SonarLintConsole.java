@@ -19,7 +19,18 @@
  */
 package org.sonarlint.eclipse.ui.internal.console;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.widgets.Display;
@@ -32,6 +43,10 @@ import org.eclipse.ui.console.MessageConsoleStream;
 import org.sonarlint.eclipse.ui.internal.Messages;
 import org.sonarlint.eclipse.ui.internal.SonarLintUiPlugin;
 
+/**
+ * Messages are filtered according to preferences (cached), then queued in a bounded buffer without blocking the caller.
+ * A background job writes them to the console streams by batches. When the buffer is full, messages are dropped and counted.
+ */
 public class SonarLintConsole extends MessageConsole {
 
   public static final String P_VERBOSE_OUTPUT = "debugOutput"; //$NON-NLS-1$
@@ -43,6 +58,9 @@ public class SonarLintConsole extends MessageConsole {
 
   public static final String TITLE = Messages.SonarConsole_title;
 
+  static final int BUFFER_CAPACITY = 10_000;
+  private static final long FLUSH_DELAY_MS = 100;
+
   private MessageConsoleStream infoStream;
   private MessageConsoleStream warnStream;
   private MessageConsoleStream debugStream;
@@ -51,6 +69,29 @@ public class SonarLintConsole extends MessageConsole {
   private Color warnColor;
   private Color debugColor;
 
+  private final Queue<LogEntry> buffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger bufferSize = new AtomicInteger();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final Job flushJob = new FlushJob();
+
+  private final IPropertyChangeListener prefListener = event -> refreshPreferences();
+  private volatile boolean verboseEnabled;
+  private volatile boolean analyzerOutputEnabled;
+  private volatile String showConsole;
+
+  private static class LogEntry {
+    private final MessageConsoleStream stream;
+    private final String msg;
+    private final boolean bringConsoleToFront;
+
+    LogEntry(MessageConsoleStream stream, String msg, boolean bringConsoleToFront) {
+      this.stream = stream;
+      this.msg = msg;
+      this.bringConsoleToFront = bringConsoleToFront;
+    }
+  }
+
   public SonarLintConsole(ImageDescriptor imageDescriptor) {
     super(TITLE, imageDescriptor);
     Display display = Display.getDefault();
@@ -63,6 +104,27 @@ public class SonarLintConsole extends MessageConsole {
 
     getWarnStream().setColor(warnColor);
     getDebugStream().setColor(debugColor);
+
+    refreshPreferences();
+    getPreferenceStore().addPropertyChangeListener(prefListener);
+  }
+
+  @Override
+  protected void dispose() {
+    getPreferenceStore().removePropertyChangeListener(prefListener);
+    flushJob.cancel();
+    super.dispose();
+  }
+
+  private void refreshPreferences() {
+    IPreferenceStore store = getPreferenceStore();
+    verboseEnabled = store.getBoolean(P_VERBOSE_OUTPUT);
+    analyzerOutputEnabled = store.getBoolean(P_ANALYZER_OUTPUT);
+    showConsole = store.getString(P_SHOW_CONSOLE);
+  }
+
+  private static IPreferenceStore getPreferenceStore() {
+    return SonarLintUiPlugin.getDefault().getPreferenceStore();
   }
 
   public void bringConsoleToFront() {
@@ -87,37 +149,87 @@ public class SonarLintConsole extends MessageConsole {
   }
 
   public void info(String msg, boolean fromAnalyzer) {
-    if (showAnalysisLogs() || !fromAnalyzer) {
-      if (isShowConsoleOnOutput()) {
-        bringConsoleToFront();
-      }
-      write(getInfoStream(), msg);
+    if (analyzerOutputEnabled || !fromAnalyzer) {
+      enqueue(getInfoStream(), msg, isShowConsoleOnOutput());
     }
   }
 
   public void error(String msg, boolean fromAnalyzer) {
-    if (showAnalysisLogs() || !fromAnalyzer) {
-      if (isShowConsoleOnOutput() || isShowConsoleOnError()) {
-        bringConsoleToFront();
-      }
-      write(getWarnStream(), msg);
+    if (analyzerOutputEnabled || !fromAnalyzer) {
+      enqueue(getWarnStream(), msg, isShowConsoleOnOutput() || isShowConsoleOnError());
     }
   }
 
   public void debug(String msg, boolean fromAnalyzer) {
-    if (isVerboseEnabled() && (showAnalysisLogs() || !fromAnalyzer)) {
-      if (isShowConsoleOnOutput()) {
-        bringConsoleToFront();
-      }
-      write(getDebugStream(), msg);
+    if (verboseEnabled && (analyzerOutputEnabled || !fromAnalyzer)) {
+      enqueue(getDebugStream(), msg, isShowConsoleOnOutput());
     }
   }
 
-  private static void write(MessageConsoleStream stream, String msg) {
+  private void enqueue(MessageConsoleStream stream, String msg, boolean bringConsoleToFront) {
     if (msg == null) {
       return;
     }
-    stream.println(msg);
+    if (bufferSize.incrementAndGet() > BUFFER_CAPACITY) {
+      bufferSize.decrementAndGet();
+      droppedCount.incrementAndGet();
+    } else {
+      buffer.add(new LogEntry(stream, msg, bringConsoleToFront));
+    }
+    if (flushScheduled.compareAndSet(false, true)) {
+      flushJob.schedule(FLUSH_DELAY_MS);
+    }
+  }
+
+  private class FlushJob extends Job {
+
+    FlushJob() {
+      super("Write SonarLint console");
+      setSystem(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      // Reset before draining, so that messages added during the flush schedule a new one
+      flushScheduled.set(false);
+      flush();
+      return Status.OK_STATUS;
+    }
+  }
+
+  /**
+   * Write buffered messages, grouping consecutive messages of the same stream in a single write.
+   */
+  void flush() {
+    boolean bringToFront = false;
+    MessageConsoleStream currentStream = null;
+    StringBuilder batch = new StringBuilder();
+    long dropped = droppedCount.getAndSet(0);
+    if (dropped > 0) {
+      currentStream = getWarnStream();
+      batch.append(dropped).append(" log messages were dropped because the console could not keep up\n");
+    }
+    LogEntry entry;
+    while ((entry = buffer.poll()) != null) {
+      bufferSize.decrementAndGet();
+      bringToFront |= entry.bringConsoleToFront;
+      if (entry.stream != currentStream) {
+        write(currentStream, batch);
+        currentStream = entry.stream;
+      }
+      batch.append(entry.msg).append('\n');
+    }
+    write(currentStream, batch);
+    if (bringToFront) {
+      bringConsoleToFront();
+    }
+  }
+
+  private static void write(MessageConsoleStream stream, StringBuilder batch) {
+    if (stream != null && batch.length() > 0) {
+      stream.print(batch.toString());
+    }
+    batch.setLength(0);
   }
 
   private MessageConsoleStream getInfoStream() {
@@ -132,23 +244,18 @@ public class SonarLintConsole extends MessageConsole {
     return debugStream;
   }
 
-  private static String getShowConsolePreference() {
-    return SonarLintUiPlugin.getDefault().getPreferenceStore().getString(SonarLintConsole.P_SHOW_CONSOLE);
-  }
-
-  private static boolean isShowConsoleOnOutput() {
-    return P_SHOW_CONSOLE_ON_OUTPUT.equals(getShowConsolePreference());
-  }
-
-  private static boolean isShowConsoleOnError() {
-    return P_SHOW_CONSOLE_ON_ERROR.equals(getShowConsolePreference());
+  private boolean isShowConsoleOnOutput() {
+    return P_SHOW_CONSOLE_ON_OUTPUT.equals(showConsole);
   }
 
-  public static boolean isVerboseEnabled() {
-    return SonarLintUiPlugin.getDefault().getPreferenceStore().getBoolean(SonarLintConsole.P_VERBOSE_OUTPUT);
+  private boolean isShowConsoleOnError() {
+    return P_SHOW_CONSOLE_ON_ERROR.equals(showConsole);
   }
 
-  public static boolean showAnalysisLogs() {
-    return SonarLintUiPlugin.getDefault().getPreferenceStore().getBoolean(SonarLintConsole.P_ANALYZER_OUTPUT);
+  /**
+   * Allow loggers to avoid formatting debug messages that would be filtered anyway
+   */
+  public boolean isDebugEnabled() {
+    return verboseEnabled;
   }
 }
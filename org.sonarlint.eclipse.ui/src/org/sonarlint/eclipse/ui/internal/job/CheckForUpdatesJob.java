@@ -19,61 +19,180 @@
  */
 package org.sonarlint.eclipse.ui.internal.job;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.widgets.Display;
+import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.server.IServer;
 import org.sonarlint.eclipse.core.internal.server.ServersManager;
 import org.sonarlint.eclipse.ui.internal.popup.ServerUpdateAvailablePopup;
 
+/**
+ * Check all servers concurrently, so that an unreachable server doesn't delay the others, and notify once of all available updates.
+ */
 public class CheckForUpdatesJob extends Job {
 
+  private static final int MAX_CONCURRENT_SERVERS = 8;
+  // A server that didn't answer in time is left out of this check
+  private static final long SERVER_CHECK_TIMEOUT_MS = 5L * 60 * 1000;
+  // Delay between checks of cancellation and timeouts while waiting for servers
+  private static final long POLL_MS = 200;
+
+  private final Supplier<List<IServer>> servers;
+  private final Consumer<List<IServer>> notifier;
+  private final long serverCheckTimeoutMs;
+
   public CheckForUpdatesJob() {
+    this(() -> ServersManager.getInstance().getServers(), CheckForUpdatesJob::showPopup, SERVER_CHECK_TIMEOUT_MS);
+  }
+
+  /**
+   * @param notifier called once per run with all servers having updates, if any
+   * @param serverCheckTimeoutMs maximum duration of the check of each server, from the time it starts
+   */
+  CheckForUpdatesJob(Supplier<List<IServer>> servers, Consumer<List<IServer>> notifier, long serverCheckTimeoutMs) {
     super("Check for configuration updates on SonarQube servers");
+    this.servers = servers;
+    this.notifier = notifier;
+    this.serverCheckTimeoutMs = serverCheckTimeoutMs;
     setPriority(DECORATE);
   }
 
   @Override
   protected IStatus run(IProgressMonitor monitor) {
     try {
-      SubMonitor subMonitor = SubMonitor.convert(monitor, ServersManager.getInstance().getServers().size());
-      subMonitor.setTaskName("Checking for configuration updates on SonarQube servers");
-      for (final IServer server : ServersManager.getInstance().getServers()) {
-        subMonitor.subTask("Checking for updates from server '" + server.getId() + "'");
-        SubMonitor serverMonitor = subMonitor.newChild(1);
-
-        IStatus status = checkForUpdates(server, serverMonitor);
-        if (status.matches(Status.CANCEL)) {
-          return status;
-        }
-
-        serverMonitor.done();
+      List<IServer> toCheck = servers.get().stream()
+        // No need to check for remote updates if local storage is already outdated
+        .filter(IServer::isStorageUpdated)
+        .collect(Collectors.toList());
+      if (toCheck.isEmpty()) {
+        return Status.OK_STATUS;
+      }
+      monitor.beginTask("Checking for configuration updates on SonarQube servers", toCheck.size());
+      List<IServer> serversWithUpdates = new ArrayList<>();
+      IStatus status = checkForUpdates(toCheck, serversWithUpdates, monitor);
+      monitor.done();
+      if (!serversWithUpdates.isEmpty()) {
+        notifier.accept(serversWithUpdates);
       }
-      return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+      return status;
     } finally {
       // Reschedule in 24H
       schedule((long) 24 * 60 * 60 * 1000);
     }
   }
 
-  private static IStatus checkForUpdates(final IServer server, SubMonitor monitor) {
-    // No need to check for remote updates if local storage is already outdated
-    if (server.isStorageUpdated()) {
-      server.checkForUpdates(monitor);
-
-      if (server.hasUpdates()) {
-        Display.getDefault().asyncExec(() -> {
-          ServerUpdateAvailablePopup popup = new ServerUpdateAvailablePopup(Display.getCurrent(), server);
-          popup.create();
-          popup.open();
-        });
-      }
+  private static void showPopup(List<IServer> serversWithUpdates) {
+    Display.getDefault().asyncExec(() -> {
+      ServerUpdateAvailablePopup popup = new ServerUpdateAvailablePopup(Display.getCurrent(), serversWithUpdates);
+      popup.create();
+      popup.open();
+    });
+  }
 
+  private IStatus checkForUpdates(List<IServer> servers, List<IServer> serversWithUpdates, IProgressMonitor monitor) {
+    List<ServerCheck> checks = servers.stream().map(ServerCheck::new).collect(Collectors.toList());
+    Deque<ServerCheck> queued = new ArrayDeque<>(checks);
+    List<ServerCheck> running = new ArrayList<>();
+    try {
+      while (!queued.isEmpty() || !running.isEmpty()) {
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+        // A check that timed out releases its slot, its thread is left to stop by itself
+        while (running.size() < MAX_CONCURRENT_SERVERS && !queued.isEmpty()) {
+          ServerCheck check = queued.poll();
+          check.start();
+          running.add(check);
+        }
+        monitor.subTask("Checking for updates from server '" + running.get(0).server.getId() + "'");
+        running.get(0).done.await(POLL_MS, TimeUnit.MILLISECONDS);
+        long now = System.currentTimeMillis();
+        for (Iterator<ServerCheck> it = running.iterator(); it.hasNext();) {
+          ServerCheck check = it.next();
+          if (check.isDone() || now - check.startTime > serverCheckTimeoutMs) {
+            check.complete();
+            it.remove();
+            monitor.worked(1);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Status.CANCEL_STATUS;
+    } finally {
+      checks.forEach(c -> c.monitor.setCanceled(true));
+    }
+    // Same order as servers
+    for (ServerCheck check : checks) {
+      if (check.hasUpdates) {
+        serversWithUpdates.add(check.server);
+      }
     }
     return Status.OK_STATUS;
   }
 
+  /**
+   * Check of a server, whose timeout starts when the check starts, not when it is queued.
+   */
+  private static class ServerCheck implements Runnable {
+    private final IServer server;
+    // Each server has its own monitor, to stop checking a server that reached the timeout
+    private final IProgressMonitor monitor = new NullProgressMonitor();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile RuntimeException failure;
+    private long startTime;
+    private boolean hasUpdates;
+
+    ServerCheck(IServer server) {
+      this.server = server;
+    }
+
+    void start() {
+      startTime = System.currentTimeMillis();
+      Thread t = new Thread(this, "SonarLint check for updates");
+      t.setDaemon(true);
+      t.start();
+    }
+
+    @Override
+    public void run() {
+      try {
+        server.checkForUpdates(monitor);
+      } catch (RuntimeException e) {
+        failure = e;
+      } finally {
+        done.countDown();
+      }
+    }
+
+    boolean isDone() {
+      return done.getCount() == 0;
+    }
+
+    void complete() {
+      if (!isDone()) {
+        SonarLintLogger.get().info("Check for updates from server '" + server.getId() + "' did not complete in time");
+        monitor.setCanceled(true);
+      } else if (failure != null) {
+        SonarLintLogger.get().error("Unable to check for updates from server '" + server.getId() + "'", failure);
+      } else {
+        hasUpdates = server.hasUpdates();
+      }
+    }
+  }
+
 }
@@ -19,6 +19,8 @@
  */
 package org.sonarlint.eclipse.ui.internal.popup;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -37,11 +39,11 @@ import org.sonarlint.eclipse.ui.internal.server.actions.JobUtils;
 
 public class ServerUpdateAvailablePopup extends AbstractNotificationPopup {
 
-  private final IServer server;
+  private final List<IServer> servers;
 
-  public ServerUpdateAvailablePopup(Display display, IServer server) {
+  public ServerUpdateAvailablePopup(Display display, List<IServer> servers) {
     super(display);
-    this.server = server;
+    this.servers = servers;
   }
 
   @Override
@@ -51,7 +53,11 @@ public class ServerUpdateAvailablePopup extends AbstractNotificationPopup {
     GridData layoutData = new GridData(GridData.FILL_HORIZONTAL);
     messageLabel.setLayoutData(layoutData);
 
-    messageLabel.setText("Updates are available on SonarQube server '" + server.getId() + "'.\nDo you want to download and update them now?");
+    String serverIds = servers.stream()
+      .map(server -> "'" + server.getId() + "'")
+      .collect(Collectors.joining(", "));
+    String label = servers.size() == 1 ? "server " : "servers ";
+    messageLabel.setText("Updates are available on SonarQube " + label + serverIds + ".\nDo you want to download and update them now?");
     messageLabel.setBackground(composite.getBackground());
     Composite links = new Composite(composite, SWT.NONE);
     links.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_END));
@@ -72,9 +78,11 @@ public class ServerUpdateAvailablePopup extends AbstractNotificationPopup {
       @Override
       public void widgetSelected(SelectionEvent e) {
         ServerUpdateAvailablePopup.this.close();
-        ServerUpdateJob job = new ServerUpdateJob(server);
-        JobUtils.scheduleAnalysisOfOpenFilesInBoundProjects(job, server);
-        job.schedule();
+        for (IServer server : servers) {
+          ServerUpdateJob job = new ServerUpdateJob(server);
+          JobUtils.scheduleAnalysisOfOpenFilesInBoundProjects(job, server);
+          job.schedule();
+        }
       }
     });
   }
@@ -466,7 +466,7 @@ public class SonarLintExtraArgumentsPreferenceAndPropertyPage extends PropertyPa
   private SonarLintProject getSonarProject() {
     IProject project = getProject();
     if (project != null) {
-      return SonarLintProject.getInstance(project);
+      return SonarLintProject.getWorkingCopy(project);
     }
     return null;
   }
@@ -155,7 +155,7 @@ public class SonarProjectPropertyPage extends PropertyPage {
 
   @Override
   public boolean performOk() {
-    final SonarLintProject sonarProject = SonarLintProject.getInstance(getProject());
+    final SonarLintProject sonarProject = SonarLintProject.getWorkingCopy(getProject());
     sonarProject.setAutoEnabled(enabledBtn.getSelection());
     sonarProject.save();
     return super.performOk();
@@ -20,17 +20,25 @@
 package org.sonarlint.eclipse.ui.internal.views;
 
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.ISelectionListener;
 import org.eclipse.ui.IWorkbenchPart;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProject;
-import org.sonarlint.eclipse.core.internal.server.IServer;
 import org.sonarlint.eclipse.core.internal.server.ServersManager;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 import org.sonarlint.eclipse.ui.internal.SonarLintUiPlugin;
@@ -42,60 +50,172 @@ public class RuleDescriptionWebView extends AbstractLinkedSonarWebView<IMarker>
 
   public static final String ID = SonarLintUiPlugin.PLUGIN_ID + ".views.RuleDescriptionWebView";
 
-  private String css() {
-    return "<style type=\"text/css\">"
-      + "body { font-family: Helvetica Neue,Segoe UI,Helvetica,Arial,sans-serif; font-size: 13px; line-height: 1.23076923; "
-      + "color: " + hexColor(getBrowser().getForeground()) + ";background-color: " + hexColor(getBrowser().getBackground())
-      + "}"
-      + "h1 { color: " + hexColor(getBrowser().getForeground()) + ";font-size: 14px;font-weight: 500; }"
-      + "h2 { line-height: 24px; color: " + hexColor(getBrowser().getForeground()) + ";}"
-      + "a { border-bottom: 1px solid #cae3f2; color: #236a97; cursor: pointer; outline: none; text-decoration: none; transition: all .2s ease;}"
-      + ".rule-desc { line-height: 1.5;}"
-      + ".rule-desc { line-height: 1.5;}"
-      + ".rule-desc h2 { font-size: 16px; font-weight: 400;}"
-      + ".rule-desc code { padding: .2em .45em; margin: 0; background-color: " + hexColor(getBrowser().getForeground(), 20) + "; border-radius: 3px; white-space: nowrap;}"
-      + ".rule-desc pre { padding: 10px; border-top: 1px solid " + hexColor(getBrowser().getForeground(), 100) + "; border-bottom: 1px solid "
-      + hexColor(getBrowser().getForeground(), 100)
-      + "; line-height: 18px; overflow: auto;}"
-      + ".rule-desc code, .rule-desc pre { font-family: Consolas,Liberation Mono,Menlo,Courier,monospace; font-size: 12px;}"
-      + ".rule-desc ul { padding-left: 40px; list-style: disc;}</style>";
+  private static final int MAX_RENDERED_DESCRIPTIONS = 100;
+
+  /**
+   * Rendered pages, keyed by server, rule key and theme colors. Shared by all instances of the view, and accessed both from the UI
+   * thread and from rendering jobs.
+   */
+  private static final Map<String, String> renderedDescriptions = new LinkedHashMap<String, String>(MAX_RENDERED_DESCRIPTIONS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > MAX_RENDERED_DESCRIPTIONS;
+    }
+  };
+
+  private static final Method GET_ALPHA_METHOD = getAlphaMethod();
+
+  private String cssThemeKey;
+  private String cachedCss;
+
+  private String css(String themeKey) {
+    if (!themeKey.equals(cssThemeKey)) {
+      cachedCss = "<style type=\"text/css\">"
+        + "body { font-family: Helvetica Neue,Segoe UI,Helvetica,Arial,sans-serif; font-size: 13px; line-height: 1.23076923; "
+        + "color: " + hexColor(getBrowser().getForeground()) + ";background-color: " + hexColor(getBrowser().getBackground())
+        + "}"
+        + "h1 { color: " + hexColor(getBrowser().getForeground()) + ";font-size: 14px;font-weight: 500; }"
+        + "h2 { line-height: 24px; color: " + hexColor(getBrowser().getForeground()) + ";}"
+        + "a { border-bottom: 1px solid #cae3f2; color: #236a97; cursor: pointer; outline: none; text-decoration: none; transition: all .2s ease;}"
+        + ".rule-desc { line-height: 1.5;}"
+        + ".rule-desc { line-height: 1.5;}"
+        + ".rule-desc h2 { font-size: 16px; font-weight: 400;}"
+        + ".rule-desc code { padding: .2em .45em; margin: 0; background-color: " + hexColor(getBrowser().getForeground(), 20) + "; border-radius: 3px; white-space: nowrap;}"
+        + ".rule-desc pre { padding: 10px; border-top: 1px solid " + hexColor(getBrowser().getForeground(), 100) + "; border-bottom: 1px solid "
+        + hexColor(getBrowser().getForeground(), 100)
+        + "; line-height: 18px; overflow: auto;}"
+        + ".rule-desc code, .rule-desc pre { font-family: Consolas,Liberation Mono,Menlo,Courier,monospace; font-size: 12px;}"
+        + ".rule-desc ul { padding-left: 40px; list-style: disc;}</style>";
+      cssThemeKey = themeKey;
+    }
+    return cachedCss;
+  }
+
+  private String themeKey() {
+    return hexColor(getBrowser().getForeground()) + ";" + hexColor(getBrowser().getBackground());
   }
 
   @Override
   protected void open(IMarker element) {
+    if (getBrowser() == null) {
+      return;
+    }
     try {
-      String ruleName = element.getAttribute(MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR).toString();
       String ruleKey = element.getAttribute(MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR).toString();
+      String ruleName = MarkerUtils.getRuleName(element);
+      if (ruleName == null) {
+        ruleName = ruleKey;
+      }
       SonarLintProject p = SonarLintProject.getInstance(element.getResource());
-      String htmlDescription;
-      if (StringUtils.isBlank(p.getServerId())) {
-        htmlDescription = SonarLintCorePlugin.getDefault().getDefaultSonarLintClientFacade().getHtmlRuleDescription(ruleKey);
-      } else {
-        IServer server = ServersManager.getInstance().getServer(p.getServerId());
-        if (server == null) {
-          super.showMessage("Project " + p.getProject().getName() + " is linked to an unknown server: " + p.getServerId() + ". Please update configuration.");
-          return;
-        }
-        htmlDescription = server.getHtmlRuleDescription(ruleKey);
+      String serverId = p.getServerId();
+      if (StringUtils.isNotBlank(serverId) && ServersManager.getInstance().getServer(serverId) == null) {
+        super.showMessage("Project " + p.getProject().getName() + " is linked to an unknown server: " + serverId + ". Please update configuration.");
+        return;
+      }
+
+      String themeKey = themeKey();
+      long generation = SonarLintCorePlugin.getDefault().getRuleDescriptionCache().getGeneration();
+      String cacheKey = generation + "|" + serverId + "|" + ruleKey + "|" + themeKey;
+      String rendered = getRendered(cacheKey);
+      if (rendered != null) {
+        super.showHtml(rendered);
+        return;
       }
 
-      super.showHtml("<!doctype html><html><head>" + css() + "</head><body><h1><big>"
-        + ruleName + "</big> (" + ruleKey
-        + ")</h1><div class=\"rule-desc\">" + htmlDescription
-        + "</div></body></html>");
+      super.showMessage("Loading description of rule " + ruleKey + "...");
+      new RenderRuleDescriptionJob(element, serverId, ruleKey, ruleName, css(themeKey), cacheKey).schedule();
     } catch (CoreException e) {
       SonarLintLogger.get().error("Unable to open rule description", e);
     }
   }
 
+  private static String render(String css, String ruleName, String ruleKey, String htmlDescription) {
+    return "<!doctype html><html><head>" + css + "</head><body><h1><big>"
+      + ruleName + "</big> (" + ruleKey
+      + ")</h1><div class=\"rule-desc\">" + htmlDescription
+      + "</div></body></html>";
+  }
+
+  @CheckForNull
+  private static String getRendered(String cacheKey) {
+    synchronized (renderedDescriptions) {
+      return renderedDescriptions.get(cacheKey);
+    }
+  }
+
+  private static void putRendered(String cacheKey, String html) {
+    synchronized (renderedDescriptions) {
+      renderedDescriptions.put(cacheKey, html);
+    }
+  }
+
+  /**
+   * Fetch the rule description out of the UI thread, since the engine may be busy (storage update, analysis, ...)
+   */
+  private class RenderRuleDescriptionJob extends Job {
+    private final IMarker element;
+    private final String serverId;
+    private final String ruleKey;
+    private final String ruleName;
+    private final String css;
+    private final String cacheKey;
+
+    RenderRuleDescriptionJob(IMarker element, @Nullable String serverId, String ruleKey, String ruleName, String css, String cacheKey) {
+      super("Load description of rule " + ruleKey);
+      this.element = element;
+      this.serverId = serverId;
+      this.ruleKey = ruleKey;
+      this.ruleName = ruleName;
+      this.css = css;
+      this.cacheKey = cacheKey;
+      setSystem(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      try {
+        String htmlDescription = SonarLintCorePlugin.getDefault().getRuleDescriptionCache().getHtmlRuleDescription(serverId, ruleKey);
+        String html = render(css, ruleName, ruleKey, htmlDescription);
+        putRendered(cacheKey, html);
+        showIfCurrent(() -> showHtml(html));
+        return Status.OK_STATUS;
+      } catch (Exception e) {
+        // Don't leave the view on the loading message
+        showIfCurrent(() -> showMessage("Unable to load description of rule " + ruleKey + ": " + e.getMessage()));
+        return new Status(IStatus.ERROR, SonarLintUiPlugin.PLUGIN_ID, "Unable to load description of rule " + ruleKey, e);
+      }
+    }
+
+    private void showIfCurrent(Runnable show) {
+      Display.getDefault().asyncExec(() -> {
+        // Selection may have changed or view may have been closed in the meantime
+        if (element.equals(currentElement) && getBrowser() != null && !getBrowser().isDisposed()) {
+          show.run();
+        }
+      });
+    }
+  }
+
   private static String hexColor(Color color) {
     return hexColor(color, getAlpha(color));
   }
 
+  @CheckForNull
+  private static Method getAlphaMethod() {
+    try {
+      return Color.class.getMethod("getAlpha");
+    } catch (Exception e) {
+      // Only available since Eclipse 4.6
+      return null;
+    }
+  }
+
   private static int getAlpha(Color c) {
+    if (GET_ALPHA_METHOD == null) {
+      return 255;
+    }
     try {
-      Method m = Color.class.getMethod("getAlpha");
-      return (int) m.invoke(c);
+      return (int) GET_ALPHA_METHOD.invoke(c);
     } catch (Exception e) {
       return 255;
     }
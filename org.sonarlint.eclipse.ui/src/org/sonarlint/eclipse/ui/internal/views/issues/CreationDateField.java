@@ -21,7 +21,6 @@ package org.sonarlint.eclipse.ui.internal.views.issues;
 
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
-import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.views.markers.MarkerField;
 import org.eclipse.ui.views.markers.MarkerItem;
@@ -36,12 +35,16 @@ public class CreationDateField extends MarkerField {
     if (item == null) {
       return null;
     }
-    String time = item.getAttributeValue(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, null);
+    Long time = MarkerUtils.decodeCreationDate(item.getAttributeValue(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, 0));
     if (time == null) {
-      // Persistent markers before 1.2 don't have creation date attribute
+      // Issues not yet known by the tracker don't have creation date
       return null;
     }
-    Date date = new Date(Long.valueOf(time));
+    return formatAge(time);
+  }
+
+  static String formatAge(long creationDate) {
+    Date date = new Date(creationDate);
     Date now = new Date();
     long days = TimeUnit.MILLISECONDS.toDays(now.getTime() - date.getTime());
     if (days > 0) {
@@ -69,8 +72,9 @@ public class CreationDateField extends MarkerField {
   @Override
   public int compare(MarkerItem item1, MarkerItem item2) {
     // Compare in reverse order to make newest issues first by default
-    return Long.valueOf(item2.getAttributeValue(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, "0"))
-      .compareTo(Long.valueOf(item1.getAttributeValue(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, "0")));
+    // Numeric attribute, no parsing needed. Unsigned comparison, see MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR
+    return Integer.compareUnsigned(item2.getAttributeValue(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, 0),
+      item1.getAttributeValue(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, 0));
   }
 
   @Override
@@ -79,9 +83,6 @@ public class CreationDateField extends MarkerField {
   }
 
   public static final int getFontWidth(Control control) {
-    GC gc = new GC(control.getDisplay());
-    int width = gc.getFontMetrics().getAverageCharWidth();
-    gc.dispose();
-    return width;
+    return IssueDescriptionField.getFontWidth(control);
   }
 }
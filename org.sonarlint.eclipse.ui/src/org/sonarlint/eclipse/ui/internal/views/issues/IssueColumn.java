@@ -0,0 +1,66 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.views.issues;
+
+import java.util.Comparator;
+
+/**
+ * Columns of {@link VirtualIssuesView}. Comparators only use values cached in {@link IssueRow}.
+ */
+enum IssueColumn {
+
+  DESCRIPTION("Description", 100,
+    Comparator.comparingInt(IssueRow::getSeverity).thenComparing(IssueRow::getMessage)),
+  RESOURCE("Resource", 25,
+    Comparator.comparing(IssueRow::getResourceName).thenComparingInt(IssueRow::getLine)),
+  PATH("Path", 40,
+    Comparator.comparing(IssueRow::getPath).thenComparing(IssueRow::getResourceName).thenComparingInt(IssueRow::getLine)),
+  LOCATION("Location", 10,
+    Comparator.comparingInt(IssueRow::getLine)),
+  // Newest issues first by default, see CreationDateField
+  CREATION_DATE("Date", 30,
+    (r1, r2) -> Integer.compareUnsigned(r2.getCreationDate(), r1.getCreationDate())),
+  RULE_KEY("Rule key", 20,
+    Comparator.comparing(IssueRow::getRuleKey));
+
+  private final String label;
+  private final int widthInChars;
+  private final Comparator<IssueRow> comparator;
+
+  IssueColumn(String label, int widthInChars, Comparator<IssueRow> comparator) {
+    this.label = label;
+    this.widthInChars = widthInChars;
+    // Ties are broken by marker id, so that the order is stable between two refreshes
+    this.comparator = comparator.thenComparingLong(IssueRow::getId);
+  }
+
+  String getLabel() {
+    return label;
+  }
+
+  int getWidthInChars() {
+    return widthInChars;
+  }
+
+  Comparator<IssueRow> getComparator(boolean ascending) {
+    return ascending ? comparator : comparator.reversed();
+  }
+
+}
@@ -19,11 +19,16 @@
  */
 package org.sonarlint.eclipse.ui.internal.views.issues;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.Nullable;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.jface.viewers.ViewerCell;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.views.markers.MarkerField;
 import org.eclipse.ui.views.markers.MarkerItem;
 import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
@@ -34,6 +39,8 @@ import org.sonarlint.eclipse.ui.internal.SonarLintImages;
  */
 public class IssueDescriptionField extends MarkerField {
 
+  private static final Map<Display, Integer> FONT_WIDTHS = new WeakHashMap<>();
+
   /**
    * Create a new instance of the receiver.
    */
@@ -46,11 +53,17 @@ public class IssueDescriptionField extends MarkerField {
     return 100 * getFontWidth(control);
   }
 
+  /**
+   * Average char width of the default font, measured once per display since it requires to allocate a GC.
+   * Must be called from the UI thread.
+   */
   public static final int getFontWidth(Control control) {
-    GC gc = new GC(control.getDisplay());
-    int width = gc.getFontMetrics().getAverageCharWidth();
-    gc.dispose();
-    return width;
+    return FONT_WIDTHS.computeIfAbsent(control.getDisplay(), display -> {
+      GC gc = new GC(display);
+      int width = gc.getFontMetrics().getAverageCharWidth();
+      gc.dispose();
+      return width;
+    });
   }
 
   @Override
@@ -72,8 +85,29 @@ public class IssueDescriptionField extends MarkerField {
     return convertSeverity(item.getAttributeValue(MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, ""));
   }
 
-  public static int convertSeverity(String severity) {
-    String severityLower = severity != null ? severity.toLowerCase() : "";
+  public static int convertSeverity(@Nullable String severity) {
+    if (severity == null) {
+      return -1;
+    }
+    // Fast path for the canonical values stored on markers, as this is called for each comparison when sorting
+    switch (severity) {
+      case "BLOCKER":
+        return 0;
+      case "CRITICAL":
+        return 1;
+      case "MAJOR":
+        return 2;
+      case "MINOR":
+        return 3;
+      case "INFO":
+        return 4;
+      default:
+        return convertSeverityIgnoreCase(severity);
+    }
+  }
+
+  private static int convertSeverityIgnoreCase(String severity) {
+    String severityLower = severity.toLowerCase(Locale.ENGLISH);
     final int result;
     if (severityLower.startsWith("blocker")) {
       result = 0;
@@ -101,7 +135,7 @@ public class IssueDescriptionField extends MarkerField {
     }
   }
 
-  private static Image getSeverityImage(int severity) {
+  static Image getSeverityImage(int severity) {
     final Image result;
     switch (severity) {
       case -1:
@@ -0,0 +1,125 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.views.issues;
+
+import java.util.Map;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+
+/**
+ * Values of a SonarLint marker displayed by {@link VirtualIssuesView}, read once so that sorting and rendering
+ * never go back to the marker. Adapts to {@link IMarker} so that other views can follow the selection.
+ */
+class IssueRow implements IAdaptable {
+
+  static final int UNKNOWN_SEVERITY = 5;
+
+  private final IMarker marker;
+  private final String resourceName;
+  private final String path;
+  private final int line;
+  private final String message;
+  private final String ruleKey;
+  private final int severity;
+  private final int creationDate;
+
+  private IssueRow(IMarker marker, Map<String, Object> attributes) {
+    this.marker = marker;
+    IResource resource = marker.getResource();
+    this.resourceName = resource.getName();
+    this.path = resource.getParent() != null ? resource.getParent().getFullPath().toString() : "";
+    this.line = intAttribute(attributes, IMarker.LINE_NUMBER);
+    this.message = stringAttribute(attributes, IMarker.MESSAGE);
+    this.ruleKey = stringAttribute(attributes, MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR);
+    int rank = IssueDescriptionField.convertSeverity((String) attributes.get(MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR));
+    this.severity = rank >= 0 ? rank : UNKNOWN_SEVERITY;
+    this.creationDate = intAttribute(attributes, MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR);
+  }
+
+  static IssueRow of(IMarker marker) throws CoreException {
+    return new IssueRow(marker, marker.getAttributes());
+  }
+
+  private static int intAttribute(Map<String, Object> attributes, String name) {
+    Object value = attributes.get(name);
+    return value instanceof Integer ? (Integer) value : 0;
+  }
+
+  private static String stringAttribute(Map<String, Object> attributes, String name) {
+    Object value = attributes.get(name);
+    return value != null ? value.toString() : "";
+  }
+
+  IMarker getMarker() {
+    return marker;
+  }
+
+  long getId() {
+    return marker.getId();
+  }
+
+  String getResourceName() {
+    return resourceName;
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  int getLine() {
+    return line;
+  }
+
+  String getMessage() {
+    return message;
+  }
+
+  String getRuleKey() {
+    return ruleKey;
+  }
+
+  /**
+   * @return from 0 (blocker) to 4 (info), {@link #UNKNOWN_SEVERITY} if unknown
+   */
+  int getSeverity() {
+    return severity;
+  }
+
+  /**
+   * @return encoded creation date, see {@link MarkerUtils#SONAR_MARKER_CREATION_DATE_ATTR}
+   */
+  int getCreationDate() {
+    return creationDate;
+  }
+
+  // Raw signature to stay compatible with Eclipse 4.3
+  @SuppressWarnings("rawtypes")
+  @Override
+  public Object getAdapter(Class adapter) {
+    if (adapter == IMarker.class) {
+      return marker;
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.views.issues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Rows of {@link VirtualIssuesView}, updated from marker deltas and sorted off the UI thread.
+ * Not thread safe, only used by the refresh job of the view.
+ */
+class IssueRowsModel {
+
+  private static final Object[] NO_CHILDREN = new Object[0];
+  private static final String[] SEVERITY_LABELS = {"Blocker", "Critical", "Major", "Minor", "Info", "Unknown"};
+
+  private final String markerType;
+  /**
+   * Group nodes are the same for all snapshots, so that the viewer keeps them expanded after a refresh
+   */
+  private final IssueGroup[] groups = new IssueGroup[SEVERITY_LABELS.length];
+  private final Map<Long, IssueRow> rowsById = new HashMap<>();
+  /**
+   * Rows added or changed since the last sort
+   */
+  private final List<IssueRow> dirtyRows = new ArrayList<>();
+  private List<IssueRow> sortedRows = new ArrayList<>();
+  private boolean loaded;
+
+  IssueRowsModel(String markerType) {
+    this.markerType = markerType;
+    for (int i = 0; i < groups.length; i++) {
+      groups[i] = new IssueGroup(i);
+    }
+  }
+
+  boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Forget all rows, next call to {@link #loadAll()} will read markers again.
+   */
+  void reset() {
+    rowsById.clear();
+    dirtyRows.clear();
+    sortedRows = new ArrayList<>();
+    loaded = false;
+  }
+
+  void loadAll() throws CoreException {
+    reset();
+    IMarker[] markers = ResourcesPlugin.getWorkspace().getRoot().findMarkers(markerType, true, IResource.DEPTH_INFINITE);
+    for (IMarker marker : markers) {
+      if (marker.exists()) {
+        put(IssueRow.of(marker));
+      }
+    }
+    loaded = true;
+  }
+
+  void apply(Collection<MarkerChange> changes) throws CoreException {
+    for (MarkerChange change : changes) {
+      IMarker marker = change.marker;
+      if (marker != null && marker.exists()) {
+        put(IssueRow.of(marker));
+      } else {
+        rowsById.remove(change.markerId);
+      }
+    }
+  }
+
+  private void put(IssueRow row) {
+    rowsById.put(row.getId(), row);
+    dirtyRows.add(row);
+  }
+
+  /**
+   * Rows that did not change keep their previous relative order, and new rows are appended. With a stable comparator,
+   * the merge sort only has to sort the new rows and merge them when few markers changed.
+   */
+  Snapshot snapshot(Comparator<IssueRow> comparator, boolean groupBySeverity) {
+    List<IssueRow> rows = new ArrayList<>(rowsById.size());
+    for (IssueRow row : sortedRows) {
+      if (isCurrent(row)) {
+        rows.add(row);
+      }
+    }
+    for (IssueRow row : dirtyRows) {
+      if (isCurrent(row)) {
+        rows.add(row);
+      }
+    }
+    dirtyRows.clear();
+    rows.sort(comparator);
+    sortedRows = rows;
+    return groupBySeverity ? Snapshot.groupedBySeverity(rows, groups) : Snapshot.flat(rows);
+  }
+
+  private boolean isCurrent(IssueRow row) {
+    return rowsById.get(row.getId()) == row;
+  }
+
+  static class MarkerChange {
+    private final long markerId;
+    private final IMarker marker;
+
+    /**
+     * @param marker null if the marker was removed
+     */
+    MarkerChange(long markerId, @Nullable IMarker marker) {
+      this.markerId = markerId;
+      this.marker = marker;
+    }
+  }
+
+  /**
+   * Node grouping rows of a given severity. Rows of the group are given by each {@link Snapshot}.
+   */
+  static class IssueGroup {
+    private final int severity;
+
+    IssueGroup(int severity) {
+      this.severity = severity;
+    }
+
+    int getSeverity() {
+      return severity;
+    }
+  }
+
+  /**
+   * Immutable content of the view. Elements are {@link IssueRow} or {@link IssueGroup}.
+   */
+  static class Snapshot {
+    static final Snapshot EMPTY = new Snapshot(NO_CHILDREN, new IssueGroup[0], new IssueRow[0][], 0);
+
+    private final Object[] roots;
+    private final IssueGroup[] groupsBySeverity;
+    private final IssueRow[][] rowsBySeverity;
+    private final int issueCount;
+
+    private Snapshot(Object[] roots, IssueGroup[] groupsBySeverity, IssueRow[][] rowsBySeverity, int issueCount) {
+      this.roots = roots;
+      this.groupsBySeverity = groupsBySeverity;
+      this.rowsBySeverity = rowsBySeverity;
+      this.issueCount = issueCount;
+    }
+
+    static Snapshot flat(List<IssueRow> rows) {
+      return new Snapshot(rows.toArray(), new IssueGroup[0], new IssueRow[0][], rows.size());
+    }
+
+    static Snapshot groupedBySeverity(List<IssueRow> sortedRows, IssueGroup[] groups) {
+      List<List<IssueRow>> rowsBySeverity = new ArrayList<>(SEVERITY_LABELS.length);
+      for (int i = 0; i < SEVERITY_LABELS.length; i++) {
+        rowsBySeverity.add(new ArrayList<>());
+      }
+      for (IssueRow row : sortedRows) {
+        rowsBySeverity.get(row.getSeverity()).add(row);
+      }
+      IssueRow[][] rowArrays = new IssueRow[SEVERITY_LABELS.length][];
+      List<IssueGroup> roots = new ArrayList<>();
+      for (int i = 0; i < SEVERITY_LABELS.length; i++) {
+        List<IssueRow> rows = rowsBySeverity.get(i);
+        rowArrays[i] = rows.toArray(new IssueRow[rows.size()]);
+        if (!rows.isEmpty()) {
+          roots.add(groups[i]);
+        }
+      }
+      return new Snapshot(roots.toArray(), groups, rowArrays, sortedRows.size());
+    }
+
+    Object[] getRoots() {
+      return roots;
+    }
+
+    Object[] getChildren(Object element) {
+      if (element instanceof IssueGroup) {
+        return rowsBySeverity[((IssueGroup) element).getSeverity()];
+      }
+      return NO_CHILDREN;
+    }
+
+    /**
+     * @return the group of the row, or null if the row is a root element
+     */
+    @CheckForNull
+    IssueGroup getGroup(IssueRow row) {
+      return groupsBySeverity.length > 0 ? groupsBySeverity[row.getSeverity()] : null;
+    }
+
+    String getLabel(IssueGroup group) {
+      return SEVERITY_LABELS[group.getSeverity()] + " (" + getChildren(group).length + ")";
+    }
+
+    int getIssueCount() {
+      return issueCount;
+    }
+  }
+
+}
@@ -19,6 +19,7 @@
  */
 package org.sonarlint.eclipse.ui.internal.views.issues;
 
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.ui.views.markers.MarkerField;
 import org.eclipse.ui.views.markers.MarkerItem;
 import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
@@ -30,7 +31,12 @@ public class IssueRuleNameField extends MarkerField {
     if (item == null) {
       return null;
     }
-    return item.getAttributeValue(MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR, "");
+    IMarker marker = item.getMarker();
+    if (marker == null) {
+      return "";
+    }
+    String ruleName = MarkerUtils.getRuleName(marker);
+    return ruleName != null ? ruleName : "";
   }
 
 }
@@ -0,0 +1,331 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2016 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.ui.internal.views.issues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.TreeViewerColumn;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.ide.IDE;
+import org.eclipse.ui.part.ViewPart;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+import org.sonarlint.eclipse.ui.internal.SonarLintUiPlugin;
+import org.sonarlint.eclipse.ui.internal.views.issues.IssueRowsModel.IssueGroup;
+import org.sonarlint.eclipse.ui.internal.views.issues.IssueRowsModel.MarkerChange;
+import org.sonarlint.eclipse.ui.internal.views.issues.IssueRowsModel.Snapshot;
+
+/**
+ * Alternative to {@link IssuesView} for workspaces with a very large number of issues. The tree is virtual, so only visible
+ * items are created. Rows are read from markers, sorted and grouped in a background job, and updated from marker deltas
+ * instead of reading all markers again.
+ */
+public class VirtualIssuesView extends ViewPart {
+
+  public static final String ID = SonarLintUiPlugin.PLUGIN_ID + ".views.issues.VirtualIssuesView";
+
+  /**
+   * Marker deltas are batched, analysis of a file deletes and creates all its markers
+   */
+  private static final long REFRESH_DELAY_MS = 200;
+
+  private final Object input = new Object();
+  private final IssueRowsModel model = new IssueRowsModel(SonarLintCorePlugin.MARKER_ID);
+  private final Queue<MarkerChange> pendingChanges = new ConcurrentLinkedQueue<>();
+  private final RefreshJob refreshJob = new RefreshJob();
+  private final IResourceChangeListener markerListener = this::resourceChanged;
+
+  private volatile IssueColumn sortColumn = IssueColumn.DESCRIPTION;
+  private volatile boolean ascending = true;
+  private volatile boolean groupBySeverity = true;
+  private volatile boolean reloadRequested;
+
+  // Only accessed from the UI thread
+  private Snapshot snapshot = Snapshot.EMPTY;
+  private TreeViewer viewer;
+
+  @Override
+  public void createPartControl(Composite parent) {
+    viewer = new TreeViewer(parent, SWT.VIRTUAL | SWT.MULTI | SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+    viewer.setUseHashlookup(true);
+    Tree tree = viewer.getTree();
+    tree.setHeaderVisible(true);
+    tree.setLinesVisible(true);
+    int charWidth = IssueDescriptionField.getFontWidth(tree);
+    for (IssueColumn column : IssueColumn.values()) {
+      createColumn(column, charWidth);
+    }
+    tree.setSortColumn(tree.getColumn(sortColumn.ordinal()));
+    tree.setSortDirection(SWT.UP);
+
+    viewer.setContentProvider(new LazyContentProvider());
+    viewer.setInput(input);
+    viewer.addDoubleClickListener(e -> openSelectedIssues());
+    getSite().setSelectionProvider(viewer);
+
+    IAction groupAction = new Action("Group by Severity", IAction.AS_CHECK_BOX) {
+      @Override
+      public void run() {
+        groupBySeverity = isChecked();
+        refreshJob.schedule();
+      }
+    };
+    groupAction.setChecked(groupBySeverity);
+    getViewSite().getActionBars().getMenuManager().add(groupAction);
+
+    // Listen before loading, deltas received during the load are applied after it
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(markerListener, IResourceChangeEvent.POST_CHANGE);
+    refreshJob.schedule();
+  }
+
+  private void createColumn(IssueColumn column, int charWidth) {
+    TreeViewerColumn viewerColumn = new TreeViewerColumn(viewer, SWT.NONE);
+    viewerColumn.setLabelProvider(new IssueLabelProvider(column));
+    TreeColumn treeColumn = viewerColumn.getColumn();
+    treeColumn.setText(column.getLabel());
+    treeColumn.setWidth(column.getWidthInChars() * charWidth);
+    treeColumn.addListener(SWT.Selection, e -> sortBy(column, treeColumn));
+  }
+
+  private void sortBy(IssueColumn column, TreeColumn treeColumn) {
+    if (sortColumn == column) {
+      ascending = !ascending;
+    } else {
+      sortColumn = column;
+      ascending = true;
+    }
+    Tree tree = viewer.getTree();
+    tree.setSortColumn(treeColumn);
+    tree.setSortDirection(ascending ? SWT.UP : SWT.DOWN);
+    refreshJob.schedule();
+  }
+
+  private void openSelectedIssues() {
+    IStructuredSelection selection = (IStructuredSelection) viewer.getSelection();
+    for (Object element : selection.toList()) {
+      if (element instanceof IssueRow) {
+        try {
+          IDE.openEditor(getSite().getPage(), ((IssueRow) element).getMarker());
+        } catch (PartInitException e) {
+          SonarLintUiPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, SonarLintUiPlugin.PLUGIN_ID, "Unable to open editor", e));
+        }
+      }
+    }
+  }
+
+  private void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    boolean changed = false;
+    // Markers of closed or deleted projects are dropped without marker deltas
+    for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+      if (projectDelta.getKind() == IResourceDelta.REMOVED || (projectDelta.getFlags() & IResourceDelta.OPEN) != 0) {
+        reloadRequested = true;
+        changed = true;
+      }
+    }
+    for (IMarkerDelta markerDelta : event.findMarkerDeltas(SonarLintCorePlugin.MARKER_ID, true)) {
+      pendingChanges.add(new MarkerChange(markerDelta.getId(), markerDelta.getKind() == IResourceDelta.REMOVED ? null : markerDelta.getMarker()));
+      changed = true;
+    }
+    if (changed) {
+      refreshJob.schedule(REFRESH_DELAY_MS);
+    }
+  }
+
+  private void show(Snapshot newSnapshot) {
+    if (viewer == null || viewer.getControl().isDisposed()) {
+      return;
+    }
+    snapshot = newSnapshot;
+    // Group nodes are reused by the model, so they can be expanded again
+    List<Object> expanded = new ArrayList<>(Arrays.asList(viewer.getExpandedElements()));
+    expanded.retainAll(Arrays.asList(newSnapshot.getRoots()));
+    viewer.setChildCount(input, newSnapshot.getRoots().length);
+    viewer.refresh();
+    viewer.setExpandedElements(expanded.toArray());
+    setContentDescription(newSnapshot.getIssueCount() == 1 ? "1 issue" : (newSnapshot.getIssueCount() + " issues"));
+  }
+
+  @Override
+  public void setFocus() {
+    viewer.getControl().setFocus();
+  }
+
+  @Override
+  public void dispose() {
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(markerListener);
+    refreshJob.cancel();
+    super.dispose();
+  }
+
+  private class RefreshJob extends Job {
+
+    RefreshJob() {
+      super("Refresh SonarLint issues");
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      List<MarkerChange> changes = new ArrayList<>();
+      MarkerChange change;
+      while ((change = pendingChanges.poll()) != null) {
+        changes.add(change);
+      }
+      try {
+        if (reloadRequested || !model.isLoaded()) {
+          reloadRequested = false;
+          model.loadAll();
+        } else {
+          model.apply(changes);
+        }
+      } catch (CoreException e) {
+        // Read everything again next time
+        model.reset();
+        return new Status(IStatus.ERROR, SonarLintUiPlugin.PLUGIN_ID, "Unable to read SonarLint markers", e);
+      }
+      if (monitor.isCanceled()) {
+        return Status.CANCEL_STATUS;
+      }
+      Snapshot newSnapshot = model.snapshot(sortColumn.getComparator(ascending), groupBySeverity);
+      Display.getDefault().asyncExec(() -> show(newSnapshot));
+      return Status.OK_STATUS;
+    }
+  }
+
+  private class LazyContentProvider implements ILazyTreeContentProvider {
+
+    @Override
+    public void updateElement(Object parent, int index) {
+      Object[] children = parent == input ? snapshot.getRoots() : snapshot.getChildren(parent);
+      if (index >= children.length) {
+        return;
+      }
+      Object child = children[index];
+      viewer.replace(parent, index, child);
+      viewer.setChildCount(child, snapshot.getChildren(child).length);
+    }
+
+    @Override
+    public void updateChildCount(Object element, int currentChildCount) {
+      int count = element == input ? snapshot.getRoots().length : snapshot.getChildren(element).length;
+      if (count != currentChildCount) {
+        viewer.setChildCount(element, count);
+      }
+    }
+
+    @Override
+    public Object getParent(Object element) {
+      if (element instanceof IssueRow) {
+        IssueGroup group = snapshot.getGroup((IssueRow) element);
+        return group != null ? group : input;
+      }
+      return input;
+    }
+
+    @Override
+    public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+      // Content is provided by snapshots
+    }
+
+    @Override
+    public void dispose() {
+      // Nothing to do
+    }
+  }
+
+  private class IssueLabelProvider extends ColumnLabelProvider {
+    private final IssueColumn column;
+
+    IssueLabelProvider(IssueColumn column) {
+      this.column = column;
+    }
+
+    @Override
+    public String getText(Object element) {
+      if (element instanceof IssueGroup) {
+        return column == IssueColumn.DESCRIPTION ? snapshot.getLabel((IssueGroup) element) : "";
+      }
+      IssueRow row = (IssueRow) element;
+      switch (column) {
+        case DESCRIPTION:
+          return row.getMessage();
+        case RESOURCE:
+          return row.getResourceName();
+        case PATH:
+          return row.getPath();
+        case LOCATION:
+          return "line " + row.getLine();
+        case CREATION_DATE:
+          Long creationDate = MarkerUtils.decodeCreationDate(row.getCreationDate());
+          return creationDate != null ? CreationDateField.formatAge(creationDate) : "";
+        case RULE_KEY:
+          return row.getRuleKey();
+        default:
+          throw new IllegalStateException("Unexpected column " + column);
+      }
+    }
+
+    @Override
+    public Image getImage(Object element) {
+      if (column != IssueColumn.DESCRIPTION) {
+        return null;
+      }
+      int severity;
+      if (element instanceof IssueGroup) {
+        severity = ((IssueGroup) element).getSeverity();
+      } else {
+        severity = ((IssueRow) element).getSeverity();
+      }
+      return IssueDescriptionField.getSeverityImage(severity == IssueRow.UNKNOWN_SEVERITY ? -1 : severity);
+    }
+  }
+
+}